@@ -0,0 +1,88 @@
+package oleborn.todospringtest.benchmark;
+
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import oleborn.todospringtest.model.jwt_authentication.Role;
+import oleborn.todospringtest.model.jwt_authentication.util.JwtUtil;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedTokenCache;
+import oleborn.todospringtest.repository.AppUserRepository;
+import oleborn.todospringtest.security.jwt_authentication.JwtRequestFilterWithCookies;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import oleborn.todospringtest.services.TokenVersionService;
+import oleborn.todospringtest.services.UserPrincipalCache;
+import oleborn.todospringtest.services.UserPrincipalService;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Сборка компонентов аутентификации без Spring-контекста и базы данных.
+ * Поля, которые в приложении внедряет Spring, заполняются через ReflectionTestUtils,
+ * репозиторий пользователей заменяется заглушкой Mockito.
+ */
+final class AuthBenchmarkFixtures {
+
+    static final String USERNAME = "benchmark-user";
+
+    private AuthBenchmarkFixtures() {
+    }
+
+    static UserPrincipal userPrincipal() {
+        return UserPrincipal.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password("$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchm")
+                .roles(List.of(Role.USER, Role.ADMIN))
+                .build();
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "your-256-bit-secret-32-characters-long");
+        ReflectionTestUtils.setField(jwtUtil, "expirationTime", 864000000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        return jwtUtil;
+    }
+
+    static AppUserRepository appUserRepository() {
+        AppUser appUser = AppUser.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password(userPrincipal().getPassword())
+                .roles(List.of(Role.USER, Role.ADMIN))
+                .build();
+        AppUserRepository repository = Mockito.mock(AppUserRepository.class);
+        Mockito.when(repository.findByUsername(USERNAME)).thenReturn(Optional.of(appUser));
+        Mockito.when(repository.findTokenVersionByUsername(USERNAME)).thenReturn(Optional.of(0));
+        return repository;
+    }
+
+    static JwtRequestFilterWithCookies filter(JwtUtil jwtUtil, AppUserRepository repository, boolean stateless) {
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache();
+        ReflectionTestUtils.setField(verifiedTokenCache, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maximumSize", 10_000L);
+        ReflectionTestUtils.setField(verifiedTokenCache, "maxTtlSeconds", 900L);
+        ReflectionTestUtils.invokeMethod(verifiedTokenCache, "init");
+
+        UserPrincipalCache userPrincipalCache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(userPrincipalCache, "maximumSize", 10_000L);
+        ReflectionTestUtils.setField(userPrincipalCache, "ttlSeconds", 300L);
+        ReflectionTestUtils.invokeMethod(userPrincipalCache, "init");
+
+        UserPrincipalService userPrincipalService = new UserPrincipalService();
+        ReflectionTestUtils.setField(userPrincipalService, "appUserRepository", repository);
+        ReflectionTestUtils.setField(userPrincipalService, "userPrincipalCache", userPrincipalCache);
+
+        TokenVersionService tokenVersionService = new TokenVersionService();
+        ReflectionTestUtils.setField(tokenVersionService, "appUserRepository", repository);
+        ReflectionTestUtils.setField(tokenVersionService, "userPrincipalCache", userPrincipalCache);
+
+        JwtRequestFilterWithCookies filter = new JwtRequestFilterWithCookies();
+        ReflectionTestUtils.setField(filter, "userDetailsService", userPrincipalService);
+        ReflectionTestUtils.setField(filter, "verifiedTokenCache", verifiedTokenCache);
+        ReflectionTestUtils.setField(filter, "tokenVersionService", tokenVersionService);
+        ReflectionTestUtils.setField(filter, "stateless", stateless);
+        return filter;
+    }
+}
@@ -0,0 +1,63 @@
+package oleborn.todospringtest.benchmark;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import oleborn.todospringtest.model.jwt_authentication.util.JwtUtil;
+import oleborn.todospringtest.security.jwt_authentication.JwtRequestFilterWithCookies;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк полного прохода {@link JwtRequestFilterWithCookies} для запроса с cookie jwtToken.
+ * Параметр {@code stateless} сравнивает восстановление пользователя из токена
+ * и загрузку через UserPrincipalService (репозиторий — заглушка, без БД).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtRequestFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean stateless;
+
+    private JwtRequestFilterWithCookies filter;
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtUtil jwtUtil = AuthBenchmarkFixtures.jwtUtil();
+        filter = AuthBenchmarkFixtures.filter(jwtUtil, AuthBenchmarkFixtures.appUserRepository(), stateless);
+        token = jwtUtil.generateToken(AuthBenchmarkFixtures.userPrincipal());
+    }
+
+    @Benchmark
+    public Object doFilterInternal() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/tasks");
+        request.setCookies(new Cookie("jwtToken", token));
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();  // Иначе следующий вызов пропустит проверку токена
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package oleborn.todospringtest.benchmark;
+
+import oleborn.todospringtest.model.jwt_authentication.util.JwtUtil;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedToken;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарки операций {@link JwtUtil} и {@link UserPrincipal#getAuthorities()}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private JwtUtil jwtUtil;
+    private UserPrincipal userPrincipal;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtil = AuthBenchmarkFixtures.jwtUtil();
+        userPrincipal = AuthBenchmarkFixtures.userPrincipal();
+        token = jwtUtil.generateToken(userPrincipal);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(userPrincipal);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, userPrincipal);
+    }
+
+    @Benchmark
+    public Optional<VerifiedToken> verifyToken() {
+        return jwtUtil.verifyToken(token);
+    }
+
+    @Benchmark
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return userPrincipal.getAuthorities();
+    }
+}
@@ -2,8 +2,10 @@ package oleborn.todospringtest;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class TodoSpringTestApplication {
 
 	public static void main(String[] args) {
@@ -8,40 +8,24 @@ import java.lang.annotation.Target;
 /**
  * Аннотация для измерения времени выполнения метода.
  * <p>
- * Методы, помеченные этой аннотацией, будут перехвачены аспектом,
- * который измеряет и логирует время их выполнения.
+ * Методы, помеченные этой аннотацией, будут перехвачены аспектом
+ * {@code MeasureExecutionTimeAspect}, который записывает время их выполнения
+ * в гистограмму Micrometer (p50/p95/p99/max, количество успешных вызовов и исключений).
+ * Метрики доступны для сбора на {@code /actuator/prometheus}.
  * <p>
  * Используйте эту аннотацию, чтобы отслеживать производительность
  * ключевых операций в приложении.
  *
  * <h2>Пример использования:</h2>
  * <pre>{@code
- * @MeasureExecutionTime
+ * @MeasureExecutionTime(value = "tasks.query", tags = {"layer=service"})
  * public void someMethod() {
  *     // Ваш код
  * }
  * }</pre>
  *
- * <h2>Работа с AOP:</h2>
- * Для корректной работы, необходимо реализовать аспект, который
- * будет обрабатывать эту аннотацию.
- *
- * <h3>Пример аспекта:</h3>
- * <pre>{@code
- * @Aspect
- * @Component
- * public class ExecutionTimeAspect {
- *
- *     @Around("@annotation(oleborn.todospringtest.annotation.MeasureExecutionTime)")
- *     public Object measureExecutionTime(ProceedingJoinPoint joinPoint) throws Throwable {
- *         long start = System.currentTimeMillis();
- *         Object result = joinPoint.proceed();
- *         long end = System.currentTimeMillis();
- *         System.out.println("Время выполнения метода " + joinPoint.getSignature().getName() + ": " + (end - start) + " мс");
- *         return result;
- *     }
- * }
- * }</pre>
+ * К каждой метрике автоматически добавляются теги {@code class}, {@code method}
+ * и {@code outcome} ({@code success} или {@code exception}).
  *
  * @Target(ElementType.METHOD) Указывает, что аннотация применяется только к методам.
  * @Retention(RetentionPolicy.RUNTIME) Указывает, что аннотация доступна во время выполнения через рефлексию.
@@ -49,5 +33,16 @@ import java.lang.annotation.Target;
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
 public @interface MeasureExecutionTime {
-}
 
+    /**
+     * Имя метрики. По умолчанию {@code method.execution}.
+     */
+    String value() default "method.execution";
+
+    /**
+     * Дополнительные теги метрики в формате {@code "ключ=значение"}.
+     * Допустимы только вместе с собственным именем метрики ({@link #value()}); все методы с этим именем
+     * должны объявлять одни и те же ключи, а ключи class, method и outcome заняты. Иначе приложение не запустится.
+     */
+    String[] tags() default {};
+}
@@ -1,22 +1,48 @@
 package oleborn.todospringtest.aop;
 
-import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.annotation.Aspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.annotation.MeasureExecutionTime;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Аспект для измерения времени выполнения методов.
  * <p>
  * Этот аспект перехватывает методы, помеченные аннотацией {@code @MeasureExecutionTime},
- * и измеряет время их выполнения, выводя результат в консоль.
+ * и записывает время их выполнения в таймеры Micrometer.
  * <p>
  * <h2>Основной функционал:</h2>
  * <ul>
- *     <li>Перехватывает методы с аннотацией {@link oleborn.todospringtest.annotation.MeasureExecutionTime}.</li>
- *     <li>Измеряет время выполнения метода.</li>
- *     <li>Логирует результат выполнения с указанием имени метода и времени в миллисекундах.</li>
+ *     <li>Перехватывает методы с аннотацией {@link MeasureExecutionTime}.</li>
+ *     <li>Измеряет время выполнения через {@link System#nanoTime()}.</li>
+ *     <li>Пишет время в гистограмму с перцентилями p50/p95/p99 и максимумом,
+ *     отдельно для успешных вызовов и вызовов с исключением.</li>
  * </ul>
+ * Запись в таймер не блокирует потоки и не пишет в лог, поэтому аспект можно держать
+ * включенным в production. Метрики собираются с {@code /actuator/prometheus}.
+ * <p>
+ * Prometheus требует одинаковый набор ключей тегов у всех метрик с одним именем, поэтому собственные
+ * {@code tags} допустимы только вместе с собственным именем метрики ({@code value}), а методы с общим
+ * собственным именем должны объявлять одни и те же ключи. Аннотации проверяются и таймеры создаются
+ * при старте приложения: ошибка конфигурации не дает приложению запуститься, а не всплывает
+ * при первом вызове метода.
  *
  * <h2>Пример аннотированного метода:</h2>
  * <pre>{@code
@@ -28,22 +54,141 @@ import org.springframework.stereotype.Component;
  */
 @Component
 @Aspect
-@Slf4j
-public class MeasureExecutionTimeAspect {
+public class MeasureExecutionTimeAspect implements SmartInitializingSingleton {
+
+    private static final int SUCCESS = 0;
+    private static final int EXCEPTION = 1;
+
+    // Имя метрики по умолчанию (см. MeasureExecutionTime#value)
+    private static final String DEFAULT_NAME = "method.execution";
+
+    // Теги, которые аспект добавляет сам
+    private static final Set<String> OWN_TAG_KEYS = Set.of("class", "method", "outcome");
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private ApplicationContext applicationContext;
+
+    // Таймеры по методу: [успех, исключение]. Создаются один раз, дальше только запись
+    private final ConcurrentMap<Method, Timer[]> timers = new ConcurrentHashMap<>();
+
+    // Ключи тегов по имени метрики и метод, первым зарегистрировавший имя
+    private final ConcurrentMap<String, TagKeys> tagKeysByName = new ConcurrentHashMap<>();
+
+    /**
+     * Проверка аннотаций и создание таймеров для всех методов бинов с {@code @MeasureExecutionTime}.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (String beanName : applicationContext.getBeanDefinitionNames()) {
+            Class<?> beanType = applicationContext.getType(beanName);
+            if (beanType == null) {
+                continue;
+            }
+            ReflectionUtils.doWithMethods(ClassUtils.getUserClass(beanType),  // Класс бина без CGLIB-прокси
+                    this::timersFor,
+                    method -> method.isAnnotationPresent(MeasureExecutionTime.class));
+        }
+    }
 
     /**
      * Измеряет время выполнения метода, помеченного аннотацией {@code @MeasureExecutionTime}.
      *
-     * @param joinPoint объект {@link org.aspectj.lang.ProceedingJoinPoint}, содержащий информацию о методе
+     * @param joinPoint объект {@link ProceedingJoinPoint}, содержащий информацию о методе
      * @return результат выполнения метода
      * @throws Throwable если исходный метод выбросит исключение
      */
     @Around("@annotation(oleborn.todospringtest.annotation.MeasureExecutionTime)")
-    public Object measureTime(org.aspectj.lang.ProceedingJoinPoint joinPoint) throws Throwable {
-        long startTime = System.currentTimeMillis();
-        Object result = joinPoint.proceed();  // Выполняем метод
-        long endTime = System.currentTimeMillis();
-        log.info("Метод {} был выполнен за: {} мс", joinPoint.getSignature().getName(), endTime - startTime);
-        return result;
+    public Object measureTime(ProceedingJoinPoint joinPoint) throws Throwable {
+        long startTime = System.nanoTime();
+        int outcome = EXCEPTION;
+        try {
+            Object result = joinPoint.proceed();  // Выполняем метод
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            timersFor(method)[outcome].record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Таймеры метода (создаются при первом вызове)
+    private Timer[] timersFor(Method method) {
+        Timer[] methodTimers = timers.get(method);
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(method, this::createTimers);
+        }
+        return methodTimers;
+    }
+
+    private Timer[] createTimers(Method method) {
+        MeasureExecutionTime annotation = method.getAnnotation(MeasureExecutionTime.class);
+        if (annotation.tags().length > 0 && DEFAULT_NAME.equals(annotation.value())) {
+            // Под общим именем у метрик разные наборы тегов, Prometheus такую метрику не примет
+            throw new IllegalStateException("@MeasureExecutionTime with custom tags needs a custom metric name: "
+                    + qualifiedName(method));
+        }
+        Tags customTags = parseTags(annotation.tags());
+        Set<String> keys = new TreeSet<>(OWN_TAG_KEYS);
+        customTags.forEach(tag -> {
+            if (!keys.add(tag.getKey())) {
+                throw new IllegalStateException("@MeasureExecutionTime tag '" + tag.getKey() + "' is reserved or repeated: "
+                        + qualifiedName(method));
+            }
+        });
+        TagKeys registered = tagKeysByName.putIfAbsent(annotation.value(), new TagKeys(keys, method));
+        if (registered != null && !registered.keys.equals(keys)) {
+            // Prometheus не примет метрику, у которой под одним именем разные наборы ключей тегов
+            throw new IllegalStateException("@MeasureExecutionTime metric '" + annotation.value() + "' has tag keys "
+                    + keys + " on " + qualifiedName(method) + " but " + registered.keys + " on "
+                    + qualifiedName(registered.method));
+        }
+        Tags tags = customTags
+                .and("class", method.getDeclaringClass().getSimpleName())
+                .and("method", method.getName());
+        return new Timer[]{
+                createTimer(annotation.value(), tags.and("outcome", "success")),
+                createTimer(annotation.value(), tags.and("outcome", "exception"))
+        };
+    }
+
+    private Timer createTimer(String name, Tags tags) {
+        return Timer.builder(name)
+                .description("Время выполнения метода, помеченного @MeasureExecutionTime")
+                .tags(tags)
+                .publishPercentiles(0.5, 0.95, 0.99)  // Перцентили считаются в приложении
+                .publishPercentileHistogram()  // Бакеты для агрегации по нескольким экземплярам
+                .register(meterRegistry);
+    }
+
+    private static String qualifiedName(Method method) {
+        return method.getDeclaringClass().getName() + "." + method.getName();
+    }
+
+    // Разбор тегов вида "ключ=значение"
+    private Tags parseTags(String[] keyValues) {
+        Tags tags = Tags.empty();
+        for (String keyValue : keyValues) {
+            int separator = keyValue.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Tag must be in 'key=value' format: " + keyValue);
+            }
+            tags = tags.and(keyValue.substring(0, separator), keyValue.substring(separator + 1));
+        }
+        return tags;
+    }
+
+    // Набор ключей тегов метрики и метод, по которому он определен (для сообщения об ошибке)
+    private static final class TagKeys {
+
+        final Set<String> keys;
+        final Method method;
+
+        TagKeys(Set<String> keys, Method method) {
+            this.keys = keys;
+            this.method = method;
+        }
     }
 }
@@ -0,0 +1,79 @@
+package oleborn.todospringtest.aop;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Аспект выборочной трассировки методов сервиса {@code TaskService}.
+ * <p>
+ * Заменяет набор советов {@code @Before/@After/@AfterReturning/@AfterThrowing/@Around},
+ * которые писали в лог несколько строк на каждый вызов.
+ * <h2>Основной функционал:</h2>
+ * <ul>
+ *     <li>Если уровень INFO выключен, трассировка не выполняется (выборка и замер времени пропускаются).</li>
+ *     <li>Трассируется только доля вызовов, заданная в {@link TracingSettings} (глобально или по методу).</li>
+ *     <li>Для трассируемого вызова пишутся начало и время выполнения; результат метода не логируется.</li>
+ *     <li>Исключения логируются всегда на уровне WARN с именем метода, независимо от выборки и уровня INFO.</li>
+ * </ul>
+ * Запись в файл выполняется асинхронно (см. logback-spring.xml).
+ */
+@Component
+@Aspect
+@Slf4j
+public class TracingAspect {
+
+    @Resource
+    private TracingSettings tracingSettings;
+
+    /**
+     * Выборочная трассировка вызова метода в классе {@code TaskService}.
+     *
+     * @param joinPoint объект {@link ProceedingJoinPoint}, содержащий информацию о вызванном методе
+     * @return результат выполнения метода
+     * @throws Throwable если исходный метод выбросит исключение
+     */
+    @Around("execution(* oleborn.todospringtest.services.TaskService.*(..))")
+    public Object traceMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+        // Проверка уровня логирования до выборки и замера времени
+        if (!log.isInfoEnabled() || !isSampled(tracingSettings.sampleRate(joinPoint.getSignature().getName()))) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable exception) {
+                log.warn("Метод {} породил ошибку: {}", joinPoint.getSignature().getName(), exception.getMessage());
+                throw exception;
+            }
+        }
+
+        String method = joinPoint.getSignature().getName();
+
+        log.info("Запущена работа метода: {}", method);
+        long startTime = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            log.info("Метод {} успешно выполнен за {} мкс", method, elapsedMicros(startTime));
+            return result;
+        } catch (Throwable exception) {
+            log.warn("Метод {} породил ошибку через {} мкс: {}", method, elapsedMicros(startTime), exception.getMessage());
+            throw exception;
+        }
+    }
+
+    // Решение о трассировке вызова с заданной вероятностью
+    private boolean isSampled(double sampleRate) {
+        if (sampleRate <= 0.0) {
+            return false;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private long elapsedMicros(long startTime) {
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime);
+    }
+}
@@ -0,0 +1,84 @@
+package oleborn.todospringtest.aop;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Настройки выборочной трассировки методов сервиса {@code TaskService}.
+ * <p>
+ * Доля трассируемых вызовов задается общим параметром {@code tracing.sample-rate}
+ * (от 0.0 — ничего, до 1.0 — каждый вызов) и может быть переопределена
+ * для отдельного метода во время работы приложения (см. TracingController).
+ */
+@Component
+public class TracingSettings {
+
+    // Доля трассируемых вызовов по умолчанию
+    @Value("${tracing.sample-rate:0.0}")
+    private volatile double defaultSampleRate;
+
+    // Переопределения по имени метода
+    private final ConcurrentMap<String, Double> methodSampleRates = new ConcurrentHashMap<>();
+
+    /**
+     * Доля трассируемых вызовов для метода.
+     *
+     * @param method Имя метода
+     * @return Доля от 0.0 до 1.0
+     */
+    public double sampleRate(String method) {
+        Double rate = methodSampleRates.get(method);
+        return rate != null ? rate : defaultSampleRate;
+    }
+
+    /**
+     * Изменение доли трассируемых вызовов для метода.
+     *
+     * @param method Имя метода
+     * @param rate Доля от 0.0 до 1.0
+     */
+    public void setSampleRate(String method, double rate) {
+        methodSampleRates.put(method, checkRate(rate));
+    }
+
+    /**
+     * Изменение доли трассируемых вызовов по умолчанию.
+     *
+     * @param rate Доля от 0.0 до 1.0
+     */
+    public void setDefaultSampleRate(double rate) {
+        defaultSampleRate = checkRate(rate);
+    }
+
+    /**
+     * Сброс переопределения для метода.
+     *
+     * @param method Имя метода
+     */
+    public void reset(String method) {
+        methodSampleRates.remove(method);
+    }
+
+    /**
+     * Текущие настройки: значение по умолчанию и переопределения по методам.
+     *
+     * @return Снимок настроек
+     */
+    public Map<String, Double> snapshot() {
+        Map<String, Double> result = new TreeMap<>(methodSampleRates);
+        result.put("*", defaultSampleRate);
+        return result;
+    }
+
+    private double checkRate(double rate) {
+        if (rate < 0.0 || rate > 1.0) {
+            throw new IllegalArgumentException("Sample rate must be between 0.0 and 1.0");
+        }
+        return rate;
+    }
+}
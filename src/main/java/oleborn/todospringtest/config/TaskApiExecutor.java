@@ -0,0 +1,71 @@
+package oleborn.todospringtest.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Пул потоков для REST API задач ({@code TaskRestController}).
+ * <p>
+ * Обработчики возвращают CompletableFuture, а работа с БД выполняется в этом пуле,
+ * поэтому медленные запросы к БД не занимают потоки контейнера. Пул ограничен:
+ * потоков не больше, чем соединений с БД, очередь конечна; при переполнении
+ * клиент получает 503 (см. ApiExceptionHandler).
+ * <p>
+ * Намеренно не бин типа Executor: иначе Spring Boot не создаст свой applicationTaskExecutor
+ * (асинхронные ответы MVC, виртуальные потоки). Метрики пула: executor.*, name=taskApi.
+ */
+@Component
+public class TaskApiExecutor {
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // Количество потоков (по умолчанию равно размеру пула соединений)
+    @Value("${tasks.api.executor.threads:20}")
+    private int threads;
+
+    // Максимальная длина очереди
+    @Value("${tasks.api.executor.queue-capacity:500}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("task-api-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);  // Начатые запросы завершаются при остановке
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), "taskApi", List.of()).bindTo(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Выполнение работы в пуле.
+     *
+     * @param work Работа (обращения к сервисам и БД)
+     * @return Результат работы
+     * @throws org.springframework.core.task.TaskRejectedException Если очередь пула заполнена
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> work) {
+        return CompletableFuture.supplyAsync(work, executor);
+    }
+}
@@ -0,0 +1,48 @@
+package oleborn.todospringtest.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import oleborn.todospringtest.model.Task;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+/**
+ * Конфигурация кэша второго уровня Hibernate для {@link Task}.
+ * <p>
+ * Менеджер кэшей JCache создается здесь и передается в Hibernate, чтобы приложение
+ * имело доступ к тем же кэшам, что и Hibernate (например, для статистики вытеснений).
+ * Размер и время жизни региона задаются в {@code application.conf}.
+ */
+@Configuration
+public class TaskCacheConfig {
+
+    // Имя региона кэша задач (Hibernate называет регион сущности по имени класса)
+    public static final String TASK_REGION = Task.class.getName();
+
+    /**
+     * Менеджер кэшей Caffeine JCache.
+     *
+     * @return Менеджер кэшей
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager jcacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        return provider.getCacheManager(provider.getDefaultURI(), TaskCacheConfig.class.getClassLoader());
+    }
+
+    /**
+     * Передача менеджера кэшей в Hibernate.
+     *
+     * @param jcacheManager Менеджер кэшей
+     * @return Настройка свойств Hibernate
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jcacheManagerCustomizer(CacheManager jcacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, jcacheManager);
+    }
+}
@@ -2,11 +2,18 @@ package oleborn.todospringtest.controllers;
 
 import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
 import oleborn.todospringtest.services.TaskService;
 import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskPage;
+import oleborn.todospringtest.model.TaskSearchPage;
+import oleborn.todospringtest.model.TaskStatus;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -17,12 +24,40 @@ public class TaskController {
     @Resource
     private TaskService taskService;
 
-    @GetMapping  // Обработка GET-запроса для отображения всех задач
-    public String listTasks(Model model) {
-        model.addAttribute("tasks", taskService.findAll());  // Добавление всех задач в модель
+    @InitBinder  // Владельца задачи определяет сервер, а не форма
+    public void initBinder(WebDataBinder binder) {
+        binder.setDisallowedFields("owner*");
+    }
+
+    @GetMapping  // Обработка GET-запроса для отображения страницы задач
+    public String listTasks(@RequestParam(required = false) TaskStatus status,  // Фильтр по статусу
+                            @RequestParam(defaultValue = "ASC") Sort.Direction sort,  // Сортировка по id: ASC или DESC
+                            @RequestParam(required = false) Long after,  // Курсор следующей страницы
+                            @RequestParam(required = false) Long before,  // Курсор предыдущей страницы
+                            @RequestParam(defaultValue = "20") int size,  // Размер страницы
+                            @AuthenticationPrincipal UserPrincipal userPrincipal,  // Текущий пользователь
+                            Model model) {
+        // Фильтр и сортировка выполняются в БД, возвращается только одна страница задач пользователя
+        TaskPage page = taskService.findPage(userPrincipal.getId(), status, sort, after, before, size);
+        model.addAttribute("tasks", page.getTasks());  // Добавление задач страницы в модель
+        model.addAttribute("page", page);  // Курсоры для ссылок навигации
+        model.addAttribute("status", status);  // Текущий фильтр для формы и ссылок
+        model.addAttribute("sort", sort);  // Текущая сортировка для формы и ссылок
         return "tasks/list";  // Возвращаем имя шаблона для отображения задач
     }
 
+    @GetMapping("/search")  // Полнотекстовый поиск по заголовку и описанию задач
+    public String searchTasks(@RequestParam(name = "q", required = false) String query,  // Поисковый запрос
+                              @RequestParam(defaultValue = "0") int page,  // Номер страницы
+                              @RequestParam(defaultValue = "20") int size,  // Размер страницы
+                              @AuthenticationPrincipal UserPrincipal userPrincipal,  // Текущий пользователь
+                              Model model) {
+        TaskSearchPage result = taskService.search(userPrincipal.getId(), query, page, size);
+        model.addAttribute("result", result);  // Найденные задачи и параметры страницы
+        model.addAttribute("memorySearch", taskService.isMemorySearchEnabled());  // Для подсказки по синтаксису запроса
+        return "tasks/search";  // Возвращаем шаблон результатов поиска
+    }
+
     @GetMapping("/create")  // Страница для создания новой задачи
     public String createTaskForm(Model model) {
         model.addAttribute("task", new Task());  // Создаем пустую задачу
@@ -30,36 +65,39 @@ public class TaskController {
     }
 
     @PostMapping  // Обработка POST-запроса для сохранения задачи
-    public String saveTask(@Valid @ModelAttribute Task task, BindingResult result, RedirectAttributes redirectAttributes) {
+    public String saveTask(@Valid @ModelAttribute Task task, BindingResult result, RedirectAttributes redirectAttributes,
+                           @AuthenticationPrincipal UserPrincipal userPrincipal) {
         if (result.hasErrors()) {  // Проверка на ошибки валидации
             return "tasks/error";  // Если есть ошибки, возвращаем форму создания задачи
         }
 
-        taskService.save(task);  // Сохраняем задачу в БД
+        task.setId(null);  // Форма создания не может перезаписать существующую задачу
+        taskService.save(task, userPrincipal.getId());  // Сохраняем задачу в БД
         return "redirect:/tasks";  // Перенаправляем на список задач
     }
 
     @GetMapping("/edit/{id}")  // Страница для редактирования задачи
-    public String editTaskForm(@PathVariable Long id, Model model) {
-        Task task = taskService.findById(id);  // Получаем задачу по ID
+    public String editTaskForm(@PathVariable Long id, Model model, @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Task task = taskService.findById(id, userPrincipal.getId());  // Получаем задачу пользователя по ID
         model.addAttribute("task", task);  // Добавляем задачу в модель
         return "tasks/edit";  // Возвращаем форму редактирования задачи
     }
 
     @PostMapping("/edit/{id}")  // Обработка POST-запроса для обновления задачи
-    public String updateTask(@Valid @ModelAttribute Task task, BindingResult result, @PathVariable Long id) {
+    public String updateTask(@Valid @ModelAttribute Task task, BindingResult result, @PathVariable Long id,
+                             @AuthenticationPrincipal UserPrincipal userPrincipal) {
         if (result.hasErrors()) {  // Если есть ошибки валидации
             return "tasks/error";  // Возвращаем форму редактирования задачи
         }
 
         task.setId(id);  // Устанавливаем ID для обновления задачи
-        taskService.save(task);  // Обновляем задачу в БД
+        taskService.save(task, userPrincipal.getId());  // Обновляем задачу пользователя в БД
         return "redirect:/tasks";  // Перенаправляем на список задач
     }
 
     @GetMapping("/delete/{id}")  // Удаление задачи
-    public String deleteTask(@PathVariable Long id) {
-        taskService.deleteById(id);  // Удаляем задачу по ID
+    public String deleteTask(@PathVariable Long id, @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        taskService.deleteById(id, userPrincipal.getId());  // Удаляем задачу пользователя по ID
         return "redirect:/tasks";  // Перенаправляем на список задач
     }
 }
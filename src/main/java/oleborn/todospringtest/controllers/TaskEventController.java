@@ -0,0 +1,39 @@
+package oleborn.todospringtest.controllers;
+
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import oleborn.todospringtest.services.TaskEventBroadcaster;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Поток изменений задач пользователя (Server-Sent Events) вместо периодической перезагрузки списка.
+ * События: created, updated, deleted (JSON с задачей) и resync (часть событий отброшена, нужно перечитать список).
+ */
+@RestController
+public class TaskEventController {
+
+    @Resource
+    private TaskEventBroadcaster taskEventBroadcaster;
+
+    /**
+     * Подписка на изменения задач текущего пользователя.
+     *
+     * @param userPrincipal Текущий пользователь
+     * @return SSE-поток или 503, если достигнут предел подписчиков
+     */
+    @GetMapping(value = "/tasks/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribe(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        return taskEventBroadcaster.subscribe(userPrincipal.getId())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .build());
+    }
+}
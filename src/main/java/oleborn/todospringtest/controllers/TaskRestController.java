@@ -0,0 +1,271 @@
+package oleborn.todospringtest.controllers;
+
+import jakarta.annotation.Resource;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import oleborn.todospringtest.config.TaskApiExecutor;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskImportReport;
+import oleborn.todospringtest.model.TaskPageDto;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.TaskStatusUpdate;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import oleborn.todospringtest.services.TaskExportService;
+import oleborn.todospringtest.services.TaskImportService;
+import oleborn.todospringtest.services.TaskService;
+import oleborn.todospringtest.services.TaskWriteBehindBuffer;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * REST-контроллер для машинного доступа к задачам (мобильные клиенты, выгрузки, интеграции).
+ * HTML-страницы обслуживает {@link TaskController}.
+ * <p>
+ * Обработчики CRUD возвращают CompletableFuture: работа с БД выполняется в {@link TaskApiExecutor},
+ * поток контейнера освобождается сразу. Ответы - {@link TaskDto}, а не JPA-сущности.
+ */
+@RestController
+@RequestMapping("/api/tasks")
+public class TaskRestController {
+
+    @Resource
+    private TaskExportService taskExportService;
+
+    @Resource
+    private TaskImportService taskImportService;
+
+    @Resource
+    private TaskService taskService;
+
+    @Resource
+    private TaskApiExecutor taskApiExecutor;
+
+    @Resource
+    private Validator validator;
+
+    /**
+     * Страница задач пользователя (keyset-пагинация, как в HTML-списке).
+     *
+     * @param status Фильтр по статусу (необязательно)
+     * @param sort Порядок сортировки по id
+     * @param after id последней задачи предыдущей страницы
+     * @param before id первой задачи следующей страницы
+     * @param size Размер страницы
+     * @param userPrincipal Текущий пользователь
+     * @return Страница задач с курсорами
+     */
+    @GetMapping
+    public CompletableFuture<TaskPageDto> listTasks(@RequestParam(required = false) TaskStatus status,
+                                                    @RequestParam(defaultValue = "ASC") Sort.Direction sort,
+                                                    @RequestParam(required = false) Long after,
+                                                    @RequestParam(required = false) Long before,
+                                                    @RequestParam(defaultValue = "20") int size,
+                                                    @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        return taskApiExecutor.supply(() ->
+                TaskPageDto.from(taskService.findPage(ownerId, status, sort, after, before, size)));
+    }
+
+    /**
+     * Задача пользователя по id.
+     *
+     * @param id id задачи
+     * @param userPrincipal Текущий пользователь
+     * @return Задача (404, если не найдена или чужая)
+     */
+    @GetMapping("/{id}")
+    public CompletableFuture<TaskDto> getTask(@PathVariable Long id,
+                                              @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        return taskApiExecutor.supply(() -> TaskDto.from(taskService.findById(id, ownerId)));
+    }
+
+    /**
+     * Создание задачи.
+     *
+     * @param taskDto Заголовок, описание и статус (id и версия игнорируются)
+     * @param userPrincipal Текущий пользователь
+     * @return Созданная задача со статусом 201
+     */
+    @PostMapping
+    public CompletableFuture<ResponseEntity<TaskDto>> createTask(@RequestBody TaskDto taskDto,
+                                                                 @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        Task task = toTask(taskDto);  // Проверка ограничений до передачи в пул
+        task.setVersion(null);
+        return taskApiExecutor.supply(() ->
+                ResponseEntity.status(HttpStatus.CREATED).body(TaskDto.from(taskService.save(task, ownerId))));
+    }
+
+    /**
+     * Полное обновление задачи с оптимистической блокировкой.
+     * <p>
+     * С параметром durability и включенным tasks.write-behind.enabled обновление идет через буфер
+     * отложенной записи без проверки версии: BUFFERED возвращает 202 сразу после попадания в буфер,
+     * DURABLE - обновленную задачу после записи в БД. Если буфер заполнен, возвращается 503.
+     *
+     * @param id id задачи
+     * @param taskDto Новые поля и версия, которую видел клиент
+     * @param durability Режим отложенной записи (необязательно)
+     * @param userPrincipal Текущий пользователь
+     * @return Обновленная задача (409, если задачу уже изменили)
+     */
+    @PutMapping("/{id}")
+    public CompletableFuture<ResponseEntity<TaskDto>> updateTask(@PathVariable Long id,
+                                                                 @RequestBody TaskDto taskDto,
+                                                                 @RequestParam(required = false) TaskWriteBehindBuffer.Durability durability,
+                                                                 @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        Task task = toTask(taskDto);
+        task.setId(id);
+        if (durability == null || !taskService.isWriteBehindEnabled()) {
+            return taskApiExecutor.supply(() -> ResponseEntity.ok(TaskDto.from(taskService.save(task, ownerId))));
+        }
+        return taskApiExecutor.supply(() -> taskService.saveWriteBehind(task, ownerId, durability))
+                .thenCompose(Function.identity())
+                .thenApply(saved -> saved == null
+                        ? ResponseEntity.accepted().<TaskDto>build()
+                        : ResponseEntity.ok(saved));
+    }
+
+    /**
+     * Удаление задачи.
+     *
+     * @param id id задачи
+     * @param userPrincipal Текущий пользователь
+     * @return Пустой ответ 204 (404, если задача не найдена или чужая)
+     */
+    @DeleteMapping("/{id}")
+    public CompletableFuture<ResponseEntity<Void>> deleteTask(@PathVariable Long id,
+                                                              @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        return taskApiExecutor.supply(() -> {
+            taskService.deleteById(id, ownerId);
+            return ResponseEntity.noContent().build();
+        });
+    }
+
+    /**
+     * Смена статуса задачи одним UPDATE с оптимистической блокировкой.
+     * Если задачу уже изменили после чтения клиентом версии, возвращается 409 Conflict.
+     *
+     * @param id id задачи
+     * @param update Новый статус и версия, которую видел клиент
+     * @param userPrincipal Текущий пользователь
+     * @return Новый статус и новая версия задачи
+     */
+    @PatchMapping("/{id}/status")
+    public CompletableFuture<TaskStatusUpdate> updateStatus(@PathVariable Long id,
+                                                            @Valid @RequestBody TaskStatusUpdate update,
+                                                            @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        return taskApiExecutor.supply(() -> {
+            long version = taskService.updateStatus(id, ownerId, update.getStatus(), update.getVersion());
+            return new TaskStatusUpdate(update.getStatus(), version);
+        });
+    }
+
+    /**
+     * Массовое удаление задач пользователя одним запросом к БД.
+     * Чужие и несуществующие id пропускаются.
+     *
+     * @param ids id удаляемых задач (не более {@link TaskService#MAX_BULK_DELETE})
+     * @param userPrincipal Текущий пользователь
+     * @return id удаленных задач
+     */
+    @DeleteMapping
+    public CompletableFuture<List<Long>> deleteTasks(@RequestParam Set<Long> ids,
+                                                     @AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        return taskApiExecutor.supply(() -> taskService.deleteAllById(ids, ownerId));
+    }
+
+    /**
+     * Потоковая выгрузка всех задач пользователя в формате NDJSON.
+     * Ответ пишется по мере чтения из БД, без сборки списка задач в памяти.
+     *
+     * @param userPrincipal Текущий пользователь
+     * @return Ответ с потоком задач
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTasks(@AuthenticationPrincipal UserPrincipal userPrincipal) {
+        Long ownerId = userPrincipal.getId();
+        StreamingResponseBody body = outputStream -> taskExportService.exportNdjson(outputStream, ownerId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks.ndjson\"")
+                .body(body);
+    }
+
+    /**
+     * Массовый импорт задач из CSV (title,description,status).
+     * Тело запроса читается потоком, ошибочные строки попадают в отчет и не прерывают импорт.
+     *
+     * @param inputStream Тело запроса
+     * @param batchSize Размер батча (необязательно)
+     * @param userPrincipal Текущий пользователь (владелец импортируемых задач)
+     * @return Отчет об импорте
+     * @throws IOException Если чтение тела запроса не удалось
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public TaskImportReport importCsv(InputStream inputStream,
+                                      @RequestParam(required = false) Integer batchSize,
+                                      @AuthenticationPrincipal UserPrincipal userPrincipal) throws IOException {
+        return taskImportService.importTasks(inputStream, TaskImportService.Format.CSV, batchSize, userPrincipal.getId());
+    }
+
+    /**
+     * Массовый импорт задач из NDJSON (один JSON-объект задачи на строку).
+     *
+     * @param inputStream Тело запроса
+     * @param batchSize Размер батча (необязательно)
+     * @param userPrincipal Текущий пользователь (владелец импортируемых задач)
+     * @return Отчет об импорте
+     * @throws IOException Если чтение тела запроса не удалось
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public TaskImportReport importNdjson(InputStream inputStream,
+                                         @RequestParam(required = false) Integer batchSize,
+                                         @AuthenticationPrincipal UserPrincipal userPrincipal) throws IOException {
+        return taskImportService.importTasks(inputStream, TaskImportService.Format.NDJSON, batchSize, userPrincipal.getId());
+    }
+
+    // Преобразование DTO в задачу с проверкой тех же ограничений, что и у формы
+    private Task toTask(TaskDto taskDto) {
+        Task task = new Task();
+        task.setTitle(taskDto.getTitle());
+        task.setDescription(taskDto.getDescription());
+        task.setStatus(taskDto.getStatus());
+        task.setVersion(taskDto.getVersion());
+        Set<ConstraintViolation<Task>> violations = validator.validate(task);
+        if (!violations.isEmpty()) {
+            throw new ConstraintViolationException(violations);
+        }
+        return task;
+    }
+}
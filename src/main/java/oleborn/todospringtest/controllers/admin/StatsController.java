@@ -0,0 +1,124 @@
+package oleborn.todospringtest.controllers.admin;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.config.TaskCacheConfig;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedTokenCache;
+import oleborn.todospringtest.services.TaskSearchIndex;
+import oleborn.todospringtest.services.TaskStatusCounters;
+import oleborn.todospringtest.services.UserPrincipalCache;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Контроллер со статистикой внутренних кэшей приложения.
+ * Доступен только пользователям с ролью ADMIN (см. SecurityConfigWithCookies).
+ */
+@RestController
+@RequestMapping("/admin/stats")
+public class StatsController {
+
+    @Resource // Внедрение зависимости кэша проверенных JWT-токенов
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Resource // Внедрение зависимости кэша пользователей
+    private UserPrincipalCache userPrincipalCache;
+
+    @Resource // Внедрение зависимости менеджера кэшей второго уровня Hibernate
+    private CacheManager jcacheManager;
+
+    @Resource // Внедрение зависимости счетчиков задач по статусам
+    private TaskStatusCounters taskStatusCounters;
+
+    @Resource // Внедрение зависимости индекса поиска задач в памяти
+    private TaskSearchIndex taskSearchIndex;
+
+    /**
+     * Размер индекса поиска задач в памяти.
+     *
+     * @return Включен ли индекс, идет ли построение, количество задач и терминов
+     */
+    @GetMapping("/search-index")
+    public Map<String, Object> searchIndexStats() {
+        return taskSearchIndex.stats();
+    }
+
+    /**
+     * Количество задач по статусам для дашборда. Читается из счетчиков в памяти без запроса в БД.
+     *
+     * @return Количество задач по каждому статусу
+     */
+    @GetMapping("/task-status")
+    public Map<TaskStatus, Long> taskStatusCounts() {
+        return taskStatusCounters.snapshot();
+    }
+
+    /**
+     * Статистика кэша проверенных JWT-токенов.
+     *
+     * @return Размер кэша, попадания, промахи и вытеснения
+     */
+    @GetMapping("/jwt-cache")
+    public Map<String, Object> jwtCacheStats() {
+        return toMap(verifiedTokenCache.stats(), verifiedTokenCache.estimatedSize());
+    }
+
+    /**
+     * Статистика кэша пользователей (UserPrincipalService).
+     *
+     * @return Размер кэша, попадания, промахи и вытеснения
+     */
+    @GetMapping("/user-cache")
+    public Map<String, Object> userCacheStats() {
+        return toMap(userPrincipalCache.stats(), userPrincipalCache.estimatedSize());
+    }
+
+    /**
+     * Статистика кэша второго уровня для задач.
+     *
+     * @return Размер кэша, попадания, промахи и вытеснения (пустой ответ, если регион еще не создан)
+     */
+    @GetMapping("/task-cache")
+    public Map<String, Object> taskCacheStats() {
+        Cache<Object, Object> region = jcacheManager.getCache(TaskCacheConfig.TASK_REGION);
+        if (region == null) {
+            return Map.of();
+        }
+        com.github.benmanes.caffeine.cache.Cache<?, ?> cache = region.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        return toMap(cache.stats(), cache.estimatedSize());
+    }
+
+    /**
+     * Полная очистка кэша пользователей (например, после ручных изменений в БД).
+     */
+    @DeleteMapping("/user-cache")
+    public void clearUserCache() {
+        userPrincipalCache.invalidateAll();
+    }
+
+    /**
+     * Преобразование статистики Caffeine в ответ.
+     *
+     * @param stats Снимок статистики
+     * @param size Примерное количество записей
+     * @return Статистика в виде map
+     */
+    private Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", size);
+        result.put("hitCount", stats.hitCount());
+        result.put("missCount", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictionCount", stats.evictionCount());
+        return result;
+    }
+}
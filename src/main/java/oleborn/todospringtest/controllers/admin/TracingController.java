@@ -0,0 +1,72 @@
+package oleborn.todospringtest.controllers.admin;
+
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.aop.TracingSettings;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Управление выборочной трассировкой методов TaskService во время работы приложения.
+ * Доступен только пользователям с ролью ADMIN (см. SecurityConfigWithCookies).
+ */
+@RestController
+@RequestMapping("/admin/tracing")
+public class TracingController {
+
+    @Resource
+    private TracingSettings tracingSettings;
+
+    /**
+     * Текущие настройки трассировки ("*" — значение по умолчанию).
+     *
+     * @return Доли трассируемых вызовов по методам
+     */
+    @GetMapping
+    public Map<String, Double> settings() {
+        return tracingSettings.snapshot();
+    }
+
+    /**
+     * Изменение доли трассируемых вызовов по умолчанию.
+     *
+     * @param rate Доля от 0.0 до 1.0
+     * @return Обновленные настройки
+     */
+    @PutMapping
+    public Map<String, Double> setDefaultSampleRate(@RequestParam double rate) {
+        tracingSettings.setDefaultSampleRate(rate);
+        return tracingSettings.snapshot();
+    }
+
+    /**
+     * Изменение доли трассируемых вызовов для метода (1.0 — полная трассировка).
+     *
+     * @param method Имя метода TaskService
+     * @param rate Доля от 0.0 до 1.0
+     * @return Обновленные настройки
+     */
+    @PutMapping("/{method}")
+    public Map<String, Double> setSampleRate(@PathVariable String method, @RequestParam double rate) {
+        tracingSettings.setSampleRate(method, rate);
+        return tracingSettings.snapshot();
+    }
+
+    /**
+     * Сброс настройки метода к значению по умолчанию.
+     *
+     * @param method Имя метода TaskService
+     * @return Обновленные настройки
+     */
+    @DeleteMapping("/{method}")
+    public Map<String, Double> reset(@PathVariable String method) {
+        tracingSettings.reset(method);
+        return tracingSettings.snapshot();
+    }
+}
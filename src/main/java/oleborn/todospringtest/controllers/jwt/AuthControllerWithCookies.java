@@ -3,12 +3,16 @@ package oleborn.todospringtest.controllers.jwt;
 import jakarta.annotation.Resource;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletResponse;
+import oleborn.todospringtest.exceptions.PasswordHashingRejectedException;
 import oleborn.todospringtest.model.jwt_authentication.util.JwtUtil;
 import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import oleborn.todospringtest.services.TaskEventBroadcaster;
+import oleborn.todospringtest.services.TokenVersionService;
 import oleborn.todospringtest.services.UserPrincipalService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -32,6 +36,12 @@ public class AuthControllerWithCookies {
     @Resource // Внедрение зависимости AuthenticationManager для аутентификации пользователей
     private AuthenticationManager authenticationManager;
 
+    @Resource // Внедрение зависимости сервиса версий токенов
+    private TokenVersionService tokenVersionService;
+
+    @Resource // Внедрение зависимости рассылки изменений задач (SSE)
+    private TaskEventBroadcaster taskEventBroadcaster;
+
     /**
      * Эндпоинт для аутентификации пользователя и генерации JWT-токена.
      * После успешной аутентификации токен сохраняется в cookies.
@@ -67,9 +77,36 @@ public class AuthControllerWithCookies {
 
             // Возвращаем успешный ответ
             return ResponseEntity.ok("Authentication successful! Token has been set in cookies.");
+        } catch (PasswordHashingRejectedException e) {
+            throw e;  // Перегрузка, а не неверный пароль: 503 формирует GlobalExceptionHandler
         } catch (Exception e) {
             // В случае ошибки аутентификации возвращаем ошибку
             return ResponseEntity.badRequest().body("Authentication failed: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Эндпоинт для отзыва всех JWT-токенов текущего пользователя (выход на всех устройствах).
+     * Cookie с токеном удаляется, открытые потоки изменений задач (SSE) закрываются.
+     *
+     * @param userPrincipal Текущий пользователь
+     * @param response HTTP-ответ для удаления cookies
+     * @return ResponseEntity с сообщением об отзыве токенов
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<String> revokeTokens(@AuthenticationPrincipal UserPrincipal userPrincipal,
+                                               HttpServletResponse response) {
+        tokenVersionService.revoke(userPrincipal.getUsername());
+        taskEventBroadcaster.disconnect(userPrincipal.getId());  // Открытые потоки событий отозванной сессии
+
+        // Удаляем токен из cookies
+        Cookie cookie = new Cookie("jwtToken", null);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(true);
+        cookie.setPath("/");
+        cookie.setMaxAge(0);
+        response.addCookie(cookie);
+
+        return ResponseEntity.ok("All tokens have been revoked.");
+    }
+}
@@ -0,0 +1,49 @@
+package oleborn.todospringtest.events;
+
+import lombok.Value;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskStatus;
+
+/**
+ * Событие изменения задачи: создание, обновление или удаление.
+ * <p>
+ * Публикуется внутри транзакции, изменившей задачу. Слушатели, которым важны только
+ * сохраненные изменения, подписываются через {@code @TransactionalEventListener}
+ * и получают событие после коммита. Для внешних потребителей событие в той же транзакции
+ * записывается в outbox (см. {@code oleborn.todospringtest.outbox.OutboxWriter}).
+ */
+@Value // Lombok: все поля private final, только геттеры
+public class TaskChangedEvent {
+
+    /**
+     * Тип изменения задачи.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    Type type; // Тип изменения
+    Long taskId; // id задачи
+    Long ownerId; // id владельца задачи
+    TaskStatus oldStatus; // Статус до изменения (null для CREATED)
+    TaskDto task; // Задача после изменения (null для DELETED); слушатели не должны ее менять
+
+    // Статус после изменения (null для DELETED)
+    public TaskStatus getNewStatus() {
+        return task != null ? task.getStatus() : null;
+    }
+
+    public static TaskChangedEvent created(TaskDto task, Long ownerId) {
+        return new TaskChangedEvent(Type.CREATED, task.getId(), ownerId, null, task);
+    }
+
+    public static TaskChangedEvent updated(TaskDto task, Long ownerId, TaskStatus oldStatus) {
+        return new TaskChangedEvent(Type.UPDATED, task.getId(), ownerId, oldStatus, task);
+    }
+
+    public static TaskChangedEvent deleted(Long taskId, Long ownerId, TaskStatus status) {
+        return new TaskChangedEvent(Type.DELETED, taskId, ownerId, status, null);
+    }
+}
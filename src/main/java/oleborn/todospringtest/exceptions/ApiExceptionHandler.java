@@ -0,0 +1,99 @@
+package oleborn.todospringtest.exceptions;
+
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.controllers.TaskRestController;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Обработка ошибок REST API задач: ответы в формате ProblemDetail (RFC 9457)
+ * вместо перенаправлений на HTML-страницы из {@link GlobalExceptionHandler}.
+ * Проверяется раньше GlobalExceptionHandler и обрабатывает все ошибки API, чтобы клиент никогда
+ * не получил HTML-страницу: стандартные ошибки Spring MVC (некорректный JSON, неизвестное значение
+ * перечисления, отсутствующий параметр) - через {@link ResponseEntityExceptionHandler},
+ * непредвиденные - ответом 500.
+ */
+@Slf4j
+@RestControllerAdvice(assignableTypes = TaskRestController.class)
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ApiExceptionHandler extends ResponseEntityExceptionHandler {
+
+    // Задача не найдена или принадлежит другому пользователю
+    @ExceptionHandler(TaskNotFoundException.class)
+    public ProblemDetail handleTaskNotFound(TaskNotFoundException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    // Задачу изменили после того, как клиент прочитал ее версию
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ProblemDetail handleConflict(ObjectOptimisticLockingFailureException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT,
+                "Task with ID " + ex.getIdentifier() + " was modified concurrently, reload it and retry");
+    }
+
+    // Тело запроса не прошло валидацию: поля с ошибками вместо стандартного текста Spring
+    @Override
+    protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex, HttpHeaders headers,
+                                                                  HttpStatusCode status, WebRequest request) {
+        ProblemDetail body = ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getBindingResult().getFieldErrors().stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage())
+                .reduce((first, second) -> first + "; " + second)
+                .orElse("Request body is not valid"));
+        return handleExceptionInternal(ex, body, headers, status, request);
+    }
+
+    // Задача не прошла проверку ограничений (длина заголовка, описания, статус)
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ProblemDetail handleConstraintViolation(ConstraintViolationException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getConstraintViolations().stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .reduce((first, second) -> first + "; " + second)
+                .orElse("Task is not valid"));
+    }
+
+    // Очередь пула REST API заполнена
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<ProblemDetail> handleRejected(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Server is busy, retry later"));
+    }
+
+    // Некорректный запрос к задачам
+    @ExceptionHandler(InvalidTaskException.class)
+    public ProblemDetail handleInvalidTask(InvalidTaskException ex) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    // Не дождались соединения из пула Hikari (connection-timeout) или БД недоступна
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<ProblemDetail> handleDatabaseUnavailable(Exception ex) {
+        log.warn("База данных недоступна для запроса к API задач: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, "Database is busy, retry later"));
+    }
+
+    // Любая другая ошибка: 500 без подробностей (они в логе), а не страница ошибки из GlobalExceptionHandler
+    @ExceptionHandler(Exception.class)
+    public ProblemDetail handleUnexpected(Exception ex) {
+        log.error("Непредвиденная ошибка API задач", ex);
+        return ProblemDetail.forStatusAndDetail(HttpStatus.INTERNAL_SERVER_ERROR, "Unexpected error");
+    }
+}
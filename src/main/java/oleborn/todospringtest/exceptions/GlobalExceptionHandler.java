@@ -1,5 +1,9 @@
 package oleborn.todospringtest.exceptions;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,6 +19,14 @@ public class GlobalExceptionHandler {
         return "redirect:/tasks";  // Перенаправляем на страницу списка задач
     }
 
+    // Обработка конфликта при редактировании: задачу изменили после открытия формы
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public String handleConflict(ObjectOptimisticLockingFailureException ex, RedirectAttributes redirectAttributes) {
+        redirectAttributes.addFlashAttribute("errorMessage",
+                "Задачу уже изменили, пока вы ее редактировали. Проверьте актуальные данные и повторите изменения");
+        return "redirect:/tasks/edit/" + ex.getIdentifier();  // Открываем форму заново с актуальной версией
+    }
+
     // Обработка исключений для некорректных задач
     @ExceptionHandler(InvalidTaskException.class)
     public String handleInvalidTask(InvalidTaskException ex, Model model) {
@@ -22,6 +34,14 @@ public class GlobalExceptionHandler {
         return "tasks/create";  // Перенаправляем на страницу создания задачи
     }
 
+    // Обработка перегрузки пула хэширования паролей (регистрация, вход через /auth/authenticate)
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<String> handlePasswordHashingRejected(PasswordHashingRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingRejectedException.RETRY_AFTER_SECONDS))
+                .body("Сервер перегружен, повторите попытку позже");
+    }
+
     // Обработка любых других ошибок
     @ExceptionHandler(Exception.class)
     public String handleGenericException(Exception ex, Model model) {
@@ -0,0 +1,18 @@
+package oleborn.todospringtest.exceptions;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Пул хэширования паролей перегружен: очередь заполнена или ожидание превысило таймаут.
+ * Отвечаем 503 с Retry-After. Наследуется от AuthenticationServiceException, чтобы форма входа
+ * получила ошибку в свой обработчик неудачной аутентификации, а не как необработанное исключение фильтра.
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    // Через сколько секунд клиенту стоит повторить запрос
+    public static final int RETRY_AFTER_SECONDS = 1;
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,38 @@
+package oleborn.todospringtest.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Запись outbox: изменение задачи, сохраненное в той же транзакции, что и само изменение.
+ * Фоновый relay передает записи во внешний приемник и удаляет их (см. пакет outbox).
+ */
+@Entity
+@Table(name = "task_outbox")
+@Data
+@NoArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    // Pooled-последовательность, как у Task: вставки outbox при импорте идут JDBC-батчами
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_outbox_seq")
+    @SequenceGenerator(name = "task_outbox_seq", sequenceName = "task_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long aggregateId; // id задачи
+
+    private Long ownerId; // id владельца задачи
+
+    @Column(nullable = false, length = 16)
+    private String eventType; // CREATED, UPDATED или DELETED
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload; // Событие в JSON (TaskChangedEvent)
+
+    @Column(nullable = false)
+    private Instant createdAt; // Время записи события
+}
@@ -6,14 +6,33 @@ import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity  // Аннотация, чтобы Hibernate знал, что это сущность, связанную с таблицей в базе данных
+// Все запросы списка фильтруют по владельцу, поэтому индекс начинается с owner_id: (owner_id, status, id)
+// покрывает фильтр по статусу с сортировкой по id. Общего индекса по статусу нет: подсчет задач по статусам
+// (TaskStatusCounters.reconcile) идет раз в минуту и не окупает лишнюю запись при каждой вставке и смене статуса
+@Table(indexes = {
+        @Index(name = "idx_task_owner_status_id", columnList = "owner_id, status, id")
+})
+// Кэш второго уровня: findById по горячим задачам не ходит в БД.
+// READ_WRITE обновляет кэш при коммите изменений через Hibernate; JPQL/SQL DML по задачам очищает весь регион
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Data
 public class Task {
 
     @Id  // Это поле будет идентификатором (ключом) для задачи
-    @GeneratedValue(strategy = GenerationType.IDENTITY)  // Автоматическая генерация значений ID
+    // Последовательность с pooled-выделением: Hibernate получает 50 id за одно обращение к БД
+    // и может группировать INSERT в JDBC-батчи (с IDENTITY это невозможно)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_seq")
+    @SequenceGenerator(name = "task_seq", sequenceName = "task_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "Title cannot be null")  // Валидация: название задачи не может быть пустым
@@ -27,4 +46,17 @@ public class Task {
     @Enumerated(EnumType.STRING)  // Храним значение как строку в базе данных
     private TaskStatus status; // Например: "IN_PROGRESS", "COMPLETED"
 
+    @ManyToOne(fetch = FetchType.LAZY)  // Владелец задачи, загружается только при обращении
+    @JoinColumn(name = "owner_id")
+    @ToString.Exclude  // Не инициализируем ленивую связь в toString/equals/hashCode
+    @EqualsAndHashCode.Exclude
+    private AppUser owner;
+
+    // Версия для оптимистической блокировки: каждое изменение увеличивает ее на 1,
+    // UPDATE с устаревшей версией не находит строку, и изменение отклоняется
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
 }
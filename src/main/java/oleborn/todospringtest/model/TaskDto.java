@@ -0,0 +1,32 @@
+package oleborn.todospringtest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Компактное представление задачи для REST API и выгрузок (без JPA-сущности).
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskDto {
+    Long id;
+    String title;
+    String description;
+    TaskStatus status;
+    Long version; // Версия для оптимистической блокировки (при создании не передается)
+
+    // Преобразование сущности в DTO (без ModelMapper, чтобы не тратить рефлексию на каждую строку выгрузки)
+    public static TaskDto from(Task task) {
+        return TaskDto.builder()
+                .id(task.getId())
+                .title(task.getTitle())
+                .description(task.getDescription())
+                .status(task.getStatus())
+                .version(task.getVersion())
+                .build();
+    }
+}
@@ -0,0 +1,43 @@
+package oleborn.todospringtest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Результат массового импорта задач.
+ * Ошибочные строки не прерывают импорт, а попадают в список ошибок (не более MAX_ERRORS записей).
+ */
+@Data
+@NoArgsConstructor
+public class TaskImportReport {
+
+    // Максимальное количество ошибок в отчете, чтобы отчет по битому файлу не занял всю память
+    public static final int MAX_ERRORS = 1000;
+
+    private long importedCount; // Успешно сохраненные задачи
+    private long failedCount; // Строки с ошибками
+    private List<RowError> errors = new ArrayList<>(); // Первые MAX_ERRORS ошибок
+
+    // Учет ошибки в строке
+    public void addError(long line, String message) {
+        failedCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    /**
+     * Ошибка в конкретной строке входного файла.
+     */
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private long line; // Номер строки, начиная с 1
+        private String message; // Описание ошибки
+    }
+}
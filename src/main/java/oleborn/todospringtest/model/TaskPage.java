@@ -0,0 +1,20 @@
+package oleborn.todospringtest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница задач для keyset-пагинации по {@code id}.
+ * Курсоры — это id крайних задач страницы; null, если в эту сторону задач больше нет.
+ */
+@Getter
+@AllArgsConstructor
+public class TaskPage {
+
+    private List<Task> tasks; // Задачи страницы, отсортированные по id
+    private int size; // Размер страницы
+    private Long previousCursor; // id первой задачи, если есть предыдущая страница
+    private Long nextCursor; // id последней задачи, если есть следующая страница
+}
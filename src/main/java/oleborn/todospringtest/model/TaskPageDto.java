@@ -0,0 +1,24 @@
+package oleborn.todospringtest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница задач для REST API: DTO вместо сущностей и курсоры для keyset-пагинации.
+ */
+@Getter
+@AllArgsConstructor
+public class TaskPageDto {
+
+    private List<TaskDto> tasks; // Задачи страницы
+    private int size; // Размер страницы
+    private Long previousCursor; // Значение before для предыдущей страницы или null
+    private Long nextCursor; // Значение after для следующей страницы или null
+
+    public static TaskPageDto from(TaskPage page) {
+        return new TaskPageDto(page.getTasks().stream().map(TaskDto::from).toList(),
+                page.getSize(), page.getPreviousCursor(), page.getNextCursor());
+    }
+}
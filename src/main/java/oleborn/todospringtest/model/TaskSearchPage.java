@@ -0,0 +1,20 @@
+package oleborn.todospringtest.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Страница результатов полнотекстового поиска, отсортированных по релевантности.
+ */
+@Getter
+@AllArgsConstructor
+public class TaskSearchPage {
+
+    private String query; // Поисковый запрос
+    private List<Task> tasks; // Найденные задачи страницы
+    private int page; // Номер страницы, начиная с 0
+    private int size; // Размер страницы
+    private boolean hasNext; // Есть ли следующая страница
+}
@@ -0,0 +1,22 @@
+package oleborn.todospringtest.model;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Частичное обновление задачи: новый статус и версия задачи.
+ * В запросе version - версия, которую видел клиент, в ответе - новая версия задачи.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskStatusUpdate {
+
+    @NotNull(message = "Status cannot be null")
+    private TaskStatus status; // Новый статус
+
+    @NotNull(message = "Version cannot be null")
+    private Long version; // Версия задачи
+}
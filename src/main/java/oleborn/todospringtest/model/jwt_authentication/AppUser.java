@@ -3,6 +3,7 @@ package oleborn.todospringtest.model.jwt_authentication;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.List;
 
@@ -24,4 +25,9 @@ public class AppUser {
     @Enumerated(EnumType.STRING)
     List<Role> roles;
 
+    // Версия выданных токенов: увеличение делает недействительными все ранее выданные JWT
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    int tokenVersion;
+
 }
\ No newline at end of file
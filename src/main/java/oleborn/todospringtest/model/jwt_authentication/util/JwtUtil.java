@@ -1,9 +1,12 @@
 package oleborn.todospringtest.model.jwt_authentication.util;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
@@ -14,7 +17,9 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -33,6 +38,21 @@ public class JwtUtil {
     @Value("864000000")
     private long expirationTime;
 
+    // Ключ и парсер создаются один раз: оба неизменяемы и потокобезопасны
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * Инициализация ключа подписи и парсера после внедрения секрета.
+     */
+    @PostConstruct
+    void init() {
+        signingKey = getSigningKey();
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey) // Указываем ключ для проверки подписи
+                .build();
+    }
+
     // Ключ для подписи JWT
     private SecretKey getSigningKey() {
         // Проверка длины ключа
@@ -55,11 +75,17 @@ public class JwtUtil {
         // Добавляем имя пользователя
         claims.put("username", userPrincipal.getUsername());
 
+        // Добавляем id пользователя (владелец задач)
+        claims.put("uid", userPrincipal.getId());
+
         // Добавляем роли пользователя
         claims.put("authorities", userPrincipal.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.toList()));
 
+        // Добавляем версию токенов пользователя (для отзыва без обращения к БД)
+        claims.put("ver", userPrincipal.getTokenVersion());
+
         // Генерируем токен с claims и временем истечения
         return createToken(claims, userPrincipal.getUsername());
     }
@@ -77,10 +103,70 @@ public class JwtUtil {
                 .setSubject(subject) // Имя пользователя
                 .setIssuedAt(new Date(System.currentTimeMillis())) // Время создания
                 .setExpiration(new Date(System.currentTimeMillis() + expirationTime)) // Время истечения
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256) // Подпись с использованием секретного ключа
+                .signWith(signingKey, SignatureAlgorithm.HS256) // Подпись с использованием секретного ключа
                 .compact(); // Сборка токена в строку
     }
 
+    /**
+     * Проверка токена с однократным разбором и проверкой подписи.
+     * Истекший токен парсер отклоняет сам, поэтому отдельная проверка срока не нужна.
+     *
+     * @param token JWT-токен
+     * @return Проверенный токен или пустой Optional, если подпись неверна, токен истек или поврежден
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return Optional.of(new VerifiedToken(
+                    claims.getSubject(),
+                    extractUserId(claims),
+                    extractAuthorities(claims),
+                    claims.getExpiration(),
+                    extractTokenVersion(claims)));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Извлечение списка ролей из claims.
+     *
+     * @param claims Данные из токена
+     * @return Неизменяемый список ролей
+     */
+    private List<String> extractAuthorities(Claims claims) {
+        Object authorities = claims.get("authorities");
+        if (!(authorities instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream()
+                .map(String::valueOf)
+                .toList();
+    }
+
+    /**
+     * Извлечение id пользователя из claims.
+     *
+     * @param claims Данные из токена
+     * @return id пользователя или null, если токен выдан без него
+     */
+    private Long extractUserId(Claims claims) {
+        Object userId = claims.get("uid");
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * Извлечение версии токенов из claims.
+     * Токены, выданные до появления версии, считаются версией 0.
+     *
+     * @param claims Данные из токена
+     * @return Версия токенов
+     */
+    private int extractTokenVersion(Claims claims) {
+        Object version = claims.get("ver");
+        return version instanceof Number number ? number.intValue() : 0;
+    }
+
     /**
      * Извлечение имени пользователя из токена.
      *
@@ -121,27 +207,13 @@ public class JwtUtil {
      */
     private Claims extractAllClaims(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey()) // Указываем ключ для проверки подписи
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (Exception e) {
             // Логируем ошибку и возвращаем null или выбрасываем исключение
             throw new RuntimeException("Не удалось извлечь данные из токена: " + e.getMessage());
         }
     }
 
-    /**
-     * Проверка, истек ли срок действия токена.
-     *
-     * @param token JWT-токен
-     * @return true, если токен истек, иначе false
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
     /**
      * Проверка валидности токена.
      *
@@ -150,12 +222,9 @@ public class JwtUtil {
      * @return true, если токен валиден, иначе false
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-        } catch (Exception e) {
-            // Логируем ошибку и возвращаем false
-            return false;
-        }
+        // Один разбор токена вместо двух (имя пользователя и срок действия)
+        return verifyToken(token)
+                .map(verifiedToken -> verifiedToken.isValidFor(userDetails))
+                .orElse(false);
     }
 }
\ No newline at end of file
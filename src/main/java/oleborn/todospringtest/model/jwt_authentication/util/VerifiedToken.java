@@ -0,0 +1,41 @@
+package oleborn.todospringtest.model.jwt_authentication.util;
+
+import lombok.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Неизменяемый результат проверки JWT-токена.
+ * Создается только в {@link JwtUtil#verifyToken(String)} после того, как подпись
+ * и срок действия токена уже проверены, поэтому повторно разбирать токен не нужно.
+ */
+@Value // Lombok: все поля private final, только геттеры
+public class VerifiedToken {
+
+    String subject; // Имя пользователя (sub)
+    Long userId; // id пользователя (uid); null для токенов, выданных до появления claim
+    List<String> authorities; // Роли пользователя в виде строк ("ROLE_USER")
+    Date expiration; // Время истечения токена (exp)
+    int tokenVersion; // Версия токенов пользователя на момент выдачи (ver)
+
+    /**
+     * Проверка, истек ли срок действия токена на текущий момент.
+     *
+     * @return true, если токен истек, иначе false
+     */
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    /**
+     * Проверка, что токен выдан указанному пользователю и еще не истек.
+     *
+     * @param userDetails Данные пользователя
+     * @return true, если токен валиден для пользователя, иначе false
+     */
+    public boolean isValidFor(UserDetails userDetails) {
+        return subject.equals(userDetails.getUsername()) && !isExpired();
+    }
+}
@@ -0,0 +1,130 @@
+package oleborn.todospringtest.model.jwt_authentication.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш проверенных JWT-токенов перед {@link JwtUtil}.
+ * Повторный запрос с тем же токеном не проверяет подпись HS256 и не декодирует Base64/JSON заново.
+ * <p>
+ * Ключом служит SHA-256 от токена, чтобы сами токены не хранились в памяти.
+ * Запись живет не дольше срока действия токена (exp) и не дольше {@code jwt.cache.max-ttl-seconds},
+ * при превышении {@code jwt.cache.maximum-size} записи вытесняются по размеру.
+ * Невалидные токены не кэшируются.
+ */
+@Component // Указывает, что этот класс является компонентом Spring и будет управляться Spring-контейнером
+public class VerifiedTokenCache {
+
+    @Resource // Внедрение зависимости утилиты для работы с JWT-токенами
+    private JwtUtil jwtUtil;
+
+    // Максимальное количество записей в кэше
+    @Value("${jwt.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    // Верхняя граница времени жизни записи в секундах (даже если exp токена дальше)
+    @Value("${jwt.cache.max-ttl-seconds:900}")
+    private long maxTtlSeconds;
+
+    private Cache<String, VerifiedToken> cache;
+
+    /**
+     * Создание кэша после внедрения настроек.
+     */
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize) // Вытеснение по размеру
+                .expireAfter(new TokenExpiry()) // Время жизни ограничено exp токена
+                .recordStats() // Счетчики попаданий и промахов
+                .build();
+    }
+
+    /**
+     * Проверка токена через кэш.
+     *
+     * @param token JWT-токен
+     * @return Проверенный токен или пустой Optional, если токен невалиден
+     */
+    public Optional<VerifiedToken> verifyToken(String token) {
+        String key = digest(token);
+        VerifiedToken cached = cache.getIfPresent(key);
+        if (cached != null && !cached.isExpired()) {
+            return Optional.of(cached);
+        }
+
+        Optional<VerifiedToken> verifiedToken = jwtUtil.verifyToken(token);
+        verifiedToken.ifPresent(value -> cache.put(key, value));
+        return verifiedToken;
+    }
+
+    /**
+     * Статистика кэша (попадания, промахи, вытеснения).
+     *
+     * @return Снимок статистики
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Примерное количество записей в кэше.
+     *
+     * @return Количество записей
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Вычисление SHA-256 от токена.
+     *
+     * @param token JWT-токен
+     * @return Хэш токена в Base64
+     */
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Политика времени жизни записи: до exp токена, но не дольше maxTtlSeconds.
+     */
+    private class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            long remainingMillis = value.getExpiration().getTime() - System.currentTimeMillis();
+            long ttlMillis = Math.min(remainingMillis, TimeUnit.SECONDS.toMillis(maxTtlSeconds));
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(ttlMillis, 0));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration; // Чтение не продлевает жизнь записи
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package oleborn.todospringtest.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.model.OutboxEvent;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Приемник outbox по умолчанию: пишет каждое событие в лог на уровне INFO (tasks.outbox.sink=log).
+ * Для проверки потока событий без внешней системы; в production нужен настоящий приемник.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "tasks.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingOutboxSink implements OutboxSink {
+
+    @Override
+    public void send(List<OutboxEvent> events) {
+        events.forEach(event -> log.info("Outbox {}: {} {}", event.getId(), event.getEventType(), event.getPayload()));
+    }
+}
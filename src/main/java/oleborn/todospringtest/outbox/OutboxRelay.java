@@ -0,0 +1,116 @@
+package oleborn.todospringtest.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.model.OutboxEvent;
+import oleborn.todospringtest.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновая передача событий outbox в {@link OutboxSink}.
+ * <p>
+ * Каждая пачка ({@code tasks.outbox.batch-size}) обрабатывается в своей транзакции:
+ * строки блокируются через {@code FOR UPDATE SKIP LOCKED}, отправляются и удаляются.
+ * Несколько экземпляров приложения разбирают outbox параллельно, не получая одни и те же строки.
+ * Если приемник упал, транзакция откатывается и пачка будет отправлена при следующем опросе.
+ * <p>
+ * Порядок гарантируется только внутри пачки; при нескольких экземплярах события одной задачи
+ * могут прийти не по порядку, поэтому потребителю стоит сравнивать версию задачи (task.version).
+ * <p>
+ * Метрики: {@code tasks.outbox.relayed} (переданные события), {@code tasks.outbox.batch}
+ * (время отправки пачки) и {@code tasks.outbox.lag} (возраст самого старого непереданного события).
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+
+    @Resource
+    private OutboxEventRepository outboxEventRepository;
+
+    @Resource
+    private OutboxSink outboxSink;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Value("${tasks.outbox.enabled:false}")
+    private boolean enabled;
+
+    // Максимальное количество событий в одной транзакции relay
+    @Value("${tasks.outbox.batch-size:500}")
+    private int batchSize;
+
+    private TransactionTemplate transactionTemplate;
+    private Counter relayedCounter;
+    private Timer batchTimer;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        relayedCounter = meterRegistry.counter("tasks.outbox.relayed");
+        batchTimer = Timer.builder("tasks.outbox.batch")
+                .description("Время отправки пачки событий outbox в приемник")
+                .register(meterRegistry);
+        TimeGauge.builder("tasks.outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Возраст самого старого непереданного события outbox")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Передача накопившихся событий: пачки идут подряд, пока outbox не опустеет.
+     */
+    @Scheduled(fixedDelayString = "${tasks.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Integer relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayBatch());
+            } while (relayed != null && relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось передать события outbox, повтор при следующем опросе", e);
+        }
+
+        // Отставание обновляется и после ошибки приемника; ошибка БД не выходит из задачи планировщика
+        try {
+            lagMillis.set(outboxEventRepository.findOldestCreatedAt()
+                    .map(oldest -> Math.max(0, Duration.between(oldest, Instant.now()).toMillis()))
+                    .orElse(0L));
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить отставание outbox", e);
+        }
+    }
+
+    // Одна пачка: блокировка строк, отправка, удаление. Выполняется в транзакции
+    private int relayBatch() {
+        List<OutboxEvent> batch = outboxEventRepository.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        batchTimer.record(() -> outboxSink.send(batch));
+        outboxEventRepository.deleteByIdIn(batch.stream().map(OutboxEvent::getId).toList());
+        relayedCounter.increment(batch.size());
+        return batch.size();
+    }
+}
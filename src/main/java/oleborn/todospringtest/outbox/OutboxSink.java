@@ -0,0 +1,22 @@
+package oleborn.todospringtest.outbox;
+
+import oleborn.todospringtest.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Приемник событий outbox (брокер сообщений, HTTP-вебхук, файл).
+ * Реализация выбирается настройкой {@code tasks.outbox.sink}.
+ * <p>
+ * Если send выбросил исключение, пачка не удаляется из outbox и будет отправлена повторно:
+ * доставка "хотя бы один раз", приемник должен быть готов к повторам.
+ */
+public interface OutboxSink {
+
+    /**
+     * Отправка пачки событий в порядке id.
+     *
+     * @param events События
+     */
+    void send(List<OutboxEvent> events);
+}
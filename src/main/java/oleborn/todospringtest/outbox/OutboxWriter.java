@@ -0,0 +1,63 @@
+package oleborn.todospringtest.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.OutboxEvent;
+import oleborn.todospringtest.repository.OutboxEventRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Запись изменений задач в outbox в той же транзакции, что и изменение.
+ * <p>
+ * Слушатель синхронный (не после коммита): запись outbox коммитится или откатывается
+ * вместе с задачей, поэтому откатившиеся изменения не попадут к потребителям,
+ * а сохраненные не потеряются при падении приложения сразу после коммита.
+ */
+@Component
+public class OutboxWriter {
+
+    @Resource
+    private OutboxEventRepository outboxEventRepository;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Value("${tasks.outbox.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Сохранение события в outbox.
+     *
+     * @param event Событие изменения задачи
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)  // Только внутри транзакции изменения задачи
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(event.getTaskId());
+        outboxEvent.setOwnerId(event.getOwnerId());
+        outboxEvent.setEventType(event.getType().name());
+        outboxEvent.setPayload(toJson(event));
+        outboxEvent.setCreatedAt(Instant.now());
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String toJson(TaskChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize task event " + event.getTaskId(), e);
+        }
+    }
+}
@@ -1,11 +1,23 @@
 package oleborn.todospringtest.repository;
 
 import oleborn.todospringtest.model.jwt_authentication.AppUser;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 
-public interface AppUserRepository extends CrudRepository<AppUser, Long> {
+public interface AppUserRepository extends JpaRepository<AppUser, Long> {
 
     Optional <AppUser> findByUsername(String username);
+
+    // Только версия токенов, без загрузки ролей пользователя
+    @Query("select u.tokenVersion from AppUser u where u.username = :username")
+    Optional<Integer> findTokenVersionByUsername(@Param("username") String username);
+
+    // Отзыв всех выданных пользователю токенов
+    @Modifying
+    @Query("update AppUser u set u.tokenVersion = u.tokenVersion + 1 where u.username = :username")
+    int incrementTokenVersion(@Param("username") String username);
 }
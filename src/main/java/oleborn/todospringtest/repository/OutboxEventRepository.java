@@ -0,0 +1,29 @@
+package oleborn.todospringtest.repository;
+
+import oleborn.todospringtest.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Следующая пачка событий с блокировкой строк до конца транзакции.
+    // SKIP LOCKED пропускает строки, заблокированные другими экземплярами relay, поэтому экземпляры не ждут друг друга
+    @Query(value = "select * from task_outbox order by id limit :limit for update skip locked", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(@Param("limit") int limit);
+
+    // Удаление переданных событий
+    @Modifying
+    @Query("delete from OutboxEvent e where e.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Время самого старого непереданного события (для метрики отставания)
+    @Query("select min(e.createdAt) from OutboxEvent e")
+    Optional<Instant> findOldestCreatedAt();
+}
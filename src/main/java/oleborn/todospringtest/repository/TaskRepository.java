@@ -1,12 +1,100 @@
 package oleborn.todospringtest.repository;
 
+import jakarta.persistence.QueryHint;
 import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
 
 // Интерфейс для доступа к данным, автоматический доступ к таблице Task
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     // JpaRepository предоставляет базовые CRUD операции
+    // Запросы ниже ограничены задачами владельца и идут по индексу idx_task_owner_status_id
+
+    // Keyset-пагинация: задачи владельца после курсора (по возрастанию id), без OFFSET
+    List<Task> findByOwnerIdAndIdGreaterThanOrderByIdAsc(Long ownerId, Long id, Limit limit);
+
+    // Keyset-пагинация: задачи владельца до курсора (по убыванию id), для перехода на предыдущую страницу
+    List<Task> findByOwnerIdAndIdLessThanOrderByIdDesc(Long ownerId, Long id, Limit limit);
+
+    // То же с фильтром по статусу: диапазон (owner_id, status, id > курсор) в индексе
+    List<Task> findByOwnerIdAndStatusAndIdGreaterThanOrderByIdAsc(Long ownerId, TaskStatus status, Long id, Limit limit);
+
+    // То же с фильтром по статусу: диапазон (owner_id, status, id < курсор) в индексе
+    List<Task> findByOwnerIdAndStatusAndIdLessThanOrderByIdDesc(Long ownerId, TaskStatus status, Long id, Limit limit);
+
+    // Удаление задач владельца одним запросом; возвращает строки [id, status] удаленных задач.
+    // Без @Modifying: результат RETURNING читается как выборка. Кэш второго уровня
+    // для удаленных id очищает TaskService
+    @Query(value = "delete from task where owner_id = :ownerId and id in (:ids) returning id, status", nativeQuery = true)
+    List<Object[]> deleteOwnedReturningStatus(@Param("ownerId") Long ownerId, @Param("ids") Collection<Long> ids);
+
+    // Смена статуса задачи владельца одним UPDATE с проверкой версии.
+    // Возвращает строку [предыдущий статус, новая версия, заголовок, описание] или ничего, если задача не найдена или версия устарела.
+    // Самосоединение prev читает статус до изменения в том же запросе
+    @Query(value = """
+            update task t set status = :status, version = t.version + 1
+            from task prev
+            where t.id = :id and t.owner_id = :ownerId and t.version = :version and prev.id = t.id
+            returning prev.status, t.version, t.title, t.description
+            """, nativeQuery = true)
+    List<Object[]> updateStatusReturningPrevious(@Param("id") Long id, @Param("ownerId") Long ownerId,
+                                                 @Param("status") String status, @Param("version") long version);
+
+    // Границы id задач для разбиения построения индекса поиска на диапазоны: строка [min, max]
+    @Query("select min(t.id), max(t.id) from Task t")
+    List<Object[]> findIdBounds();
+
+    // Задачи в диапазоне id для индекса поиска в памяти: строки [id, ownerId, title, description, status].
+    // Проекция без сущностей, чтобы построение индекса не заполняло контекст и кэш второго уровня
+    @Query("select t.id, t.owner.id, t.title, t.description, t.status, t.version from Task t " +
+            "where t.id >= :fromId and t.id < :toId order by t.id")
+    List<Object[]> findIndexRowsByIdRange(@Param("fromId") long fromId, @Param("toId") long toId);
+
+    // Количество задач без владельца (созданных до привязки задач к пользователям)
+    long countByOwnerIsNull();
+
+    // Назначение владельца всем задачам без владельца. JPQL DML очищает регион кэша второго уровня целиком
+    @Modifying
+    @Query("update Task t set t.owner = :owner where t.owner is null")
+    int assignOwnerToOrphans(@Param("owner") AppUser owner);
+
+    // Количество задач по статусам: строки [TaskStatus, Long]
+    @Query("select t.status, count(t) from Task t group by t.status")
+    List<Object[]> countByStatus();
+
+    // Полнотекстовый поиск по заголовку и описанию задач владельца, по убыванию релевантности.
+    // Колонка search_vector и GIN-индекс по ней создаются в schema.sql
+    @Query(value = """
+            select t.* from task t
+            where t.owner_id = :ownerId
+              and t.search_vector @@ websearch_to_tsquery('russian', :query)
+            order by ts_rank(t.search_vector, websearch_to_tsquery('russian', :query)) desc, t.id desc
+            limit :limit offset :offset
+            """, nativeQuery = true)
+    List<Task> search(@Param("ownerId") Long ownerId, @Param("query") String query,
+                      @Param("limit") int limit, @Param("offset") int offset);
+
+    // Потоковое чтение задач владельца для выгрузки: строки приходят из JDBC порциями по fetch size,
+    // а не собираются в List. Вызывать только внутри транзакции и закрывать Stream после чтения
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from Task t where t.owner.id = :ownerId order by t.id")
+    Stream<Task> streamByOwnerIdOrderById(@Param("ownerId") Long ownerId);
 }
@@ -0,0 +1,120 @@
+package oleborn.todospringtest.security.jwt_authentication;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import oleborn.todospringtest.exceptions.PasswordHashingRejectedException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Кодировщик паролей, который выполняет хэширование (BCrypt) в отдельном ограниченном пуле потоков.
+ * <p>
+ * Хэширование занимает десятки миллисекунд процессора, поэтому всплеск входов и регистраций
+ * не должен занимать все потоки запросов. Пул ограничен числом потоков и длиной очереди:
+ * если очередь заполнена или ожидание результата дольше таймаута, сразу выбрасывается
+ * {@link PasswordHashingRejectedException} (ответ 503), а не копится очередь запросов.
+ * <p>
+ * Метрики: {@code password.hash} (время хэширования, тег operation),
+ * {@code password.hash.rejected} (отказы, тег reason) и {@code password.hash.queue.size}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final MeterRegistry meterRegistry;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    /**
+     * @param delegate Кодировщик, выполняющий хэширование
+     * @param threads Количество потоков хэширования
+     * @param queueCapacity Максимальная длина очереди ожидающих хэширования
+     * @param timeoutMillis Максимальное время ожидания результата вызывающим потоком
+     * @param meterRegistry Реестр метрик
+     */
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  long timeoutMillis, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());  // Переполнение очереди - RejectedExecutionException
+
+        this.encodeTimer = hashTimer("encode");
+        this.matchesTimer = hashTimer("matches");
+        meterRegistry.gauge("password.hash.queue.size", executor, pool -> pool.getQueue().size());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);  // Разбор префикса хэша, без хэширования
+    }
+
+    /**
+     * Остановка пула при закрытии контекста (Spring вызывает shutdown() у бина автоматически).
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Выполнение хэширования в пуле с ожиданием результата не дольше timeoutMillis
+    private <T> T execute(Callable<T> hashing, Timer timer) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> timer.recordCallable(hashing));
+        } catch (RejectedExecutionException e) {
+            throw rejected("queue_full", "Password hashing queue is full", e);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw rejected("timeout", "Password hashing timed out", e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw rejected("interrupted", "Password hashing was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;  // Ошибка самого кодировщика (например, некорректный хэш)
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingRejectedException rejected(String reason, String message, Exception cause) {
+        meterRegistry.counter("password.hash.rejected", "reason", reason).increment();
+        return new PasswordHashingRejectedException(message, cause);
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("password.hash")
+                .description("Время хэширования пароля в пуле password-hash")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+}
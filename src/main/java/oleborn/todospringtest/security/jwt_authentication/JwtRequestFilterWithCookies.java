@@ -6,8 +6,11 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import oleborn.todospringtest.model.jwt_authentication.util.JwtUtil;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedToken;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedTokenCache;
+import oleborn.todospringtest.services.TokenVersionService;
 import oleborn.todospringtest.services.UserPrincipalService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,6 +26,10 @@ import java.io.IOException;
  * и, если токен корректен, устанавливает аутентификацию пользователя в SecurityContextHolder.
  *
  * Фильтр выполняется один раз для каждого запроса (благодаря наследованию от OncePerRequestFilter).
+ *
+ * В режиме {@code jwt.stateless=true} пользователь восстанавливается из claims токена,
+ * а отзыв проверяется по версии токенов в памяти, без обращения к базе данных.
+ * При {@code jwt.stateless=false} пользователь загружается через UserPrincipalService.
  */
 @Component // Указывает, что этот класс является компонентом Spring и будет управляться Spring-контейнером
 public class JwtRequestFilterWithCookies extends OncePerRequestFilter {
@@ -30,8 +37,15 @@ public class JwtRequestFilterWithCookies extends OncePerRequestFilter {
     @Resource // Внедрение зависимости сервиса для работы с пользовательскими данными
     private UserPrincipalService userDetailsService;
 
-    @Resource // Внедрение зависимости утилиты для работы с JWT-токенами
-    private JwtUtil jwtUtil;
+    @Resource // Внедрение зависимости кэша проверенных JWT-токенов
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Resource // Внедрение зависимости сервиса версий токенов (отзыв токенов)
+    private TokenVersionService tokenVersionService;
+
+    // Восстанавливать пользователя из токена без запроса в базу данных
+    @Value("${jwt.stateless:true}")
+    private boolean stateless;
 
     /**
      * Основной метод фильтра, который выполняется для каждого HTTP-запроса.
@@ -49,20 +63,18 @@ public class JwtRequestFilterWithCookies extends OncePerRequestFilter {
         // Получаем JWT-токен из cookies
         String jwt = getTokenFromCookies(request);
 
-        String username = null; // Имя пользователя, извлеченное из JWT-токена
-
-        // Если токен извлечен, извлекаем имя пользователя из токена
-        if (jwt != null) {
-            username = jwtUtil.extractUsername(jwt);
-        }
+        // Проверяем подпись и срок действия токена (повторные токены берутся из кэша)
+        VerifiedToken verifiedToken = jwt != null ? verifiedTokenCache.verifyToken(jwt).orElse(null) : null;
 
-        // Если имя пользователя извлечено и аутентификация еще не установлена в SecurityContextHolder
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            // Загружаем данные пользователя (userPrincipal) по имени пользователя
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        // Если токен валиден и аутентификация еще не установлена в SecurityContextHolder
+        if (verifiedToken != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Получаем данные пользователя из токена или из базы данных, в зависимости от режима
+            UserDetails userDetails = stateless
+                    ? authenticateStateless(verifiedToken)
+                    : authenticateWithDatabase(verifiedToken);
 
-            // Проверяем, что JWT-токен валиден для данного пользователя
-            if (jwtUtil.validateToken(jwt, userDetails)) {
+            // Если токен валиден для пользователя и не отозван
+            if (userDetails != null) {
                 // Создаем объект аутентификации на основе данных пользователя
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
@@ -79,6 +91,41 @@ public class JwtRequestFilterWithCookies extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Восстановление пользователя из claims токена без обращения к базе данных.
+     *
+     * @param verifiedToken Проверенный токен
+     * @return Пользователь или null, если токен отозван или содержит неизвестную роль (запрос останется анонимным)
+     */
+    private UserDetails authenticateStateless(VerifiedToken verifiedToken) {
+        // В старых токенах нет id пользователя: загружаем пользователя из базы данных
+        if (verifiedToken.getUserId() == null) {
+            return authenticateWithDatabase(verifiedToken);
+        }
+        if (!tokenVersionService.isCurrent(verifiedToken.getSubject(), verifiedToken.getTokenVersion())) {
+            return null;
+        }
+        return UserPrincipal.fromVerifiedToken(verifiedToken).orElse(null);
+    }
+
+    /**
+     * Загрузка пользователя из базы данных и проверка токена по его данным.
+     *
+     * @param verifiedToken Проверенный токен
+     * @return Пользователь или null, если токен не подходит пользователю или отозван
+     */
+    private UserDetails authenticateWithDatabase(VerifiedToken verifiedToken) {
+        // Загружаем данные пользователя (userPrincipal) по имени пользователя
+        UserPrincipal userPrincipal = this.userDetailsService.loadUserByUsername(verifiedToken.getSubject());
+
+        // Проверяем, что JWT-токен выдан этому пользователю и его версия актуальна
+        if (!verifiedToken.isValidFor(userPrincipal)
+                || verifiedToken.getTokenVersion() != userPrincipal.getTokenVersion()) {
+            return null;
+        }
+        return userPrincipal;
+    }
+
     /**
      * Метод для извлечения JWT-токена из cookies.
      *
@@ -1,17 +1,31 @@
 package oleborn.todospringtest.security.jwt_authentication;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.Resource;
+import jakarta.servlet.DispatcherType;
+import oleborn.todospringtest.exceptions.PasswordHashingRejectedException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 /**
@@ -40,10 +54,18 @@ public class SecurityConfigWithCookies {
                 .csrf(AbstractHttpConfigurer::disable)
                 // Настройка авторизации запросов
                 .authorizeHttpRequests(auth -> auth
+                        // Повторные диспетчеризации того же запроса (асинхронный ответ, страница ошибки) уже прошли
+                        // авторизацию; JWT-фильтр на них не выполняется, поэтому контекст безопасности пуст
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                         .requestMatchers("/static/**","/css/**", "/js/**", "/", "/login", "/register", "/register/form", "/auth/authenticate")
                             .permitAll() // Разрешаем доступ без аутентификации
+                        .requestMatchers("/actuator/health")
+                            .permitAll() // Проверка живости без аутентификации
+                        // Метрики (в том числе время выполнения отдельных методов) и остальные эндпоинты Actuator
+                        // только для ADMIN; /actuator/prometheus обрабатывает prometheusFilterChain
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/tasks", "/tasks/**").authenticated()
-                        .requestMatchers("/admin").hasRole("ADMIN") // Доступ только для пользователей с ролью ADMIN
+                        .requestMatchers("/admin", "/admin/**").hasRole("ADMIN") // Доступ только для пользователей с ролью ADMIN
                         .anyRequest().authenticated() // Все остальные запросы требуют аутентификации
                 )
 
@@ -51,6 +73,7 @@ public class SecurityConfigWithCookies {
                 .formLogin(form -> form
                         .loginPage("/login") // Страница входа
                         .defaultSuccessUrl("/tasks") // Перенаправление после успешного входа
+                        .failureHandler(loginFailureHandler()) // Неверный пароль - /login?error, перегрузка - 503
                         .permitAll() // Разрешаем доступ к странице входа всем
                 )
 
@@ -73,15 +96,88 @@ public class SecurityConfigWithCookies {
         return http.build(); // Сборка и возврат настроенной цепочки фильтров
     }
 
+    /**
+     * Цепочка фильтров для /actuator/prometheus. Сборщик Prometheus не может предъявить JWT из cookie,
+     * поэтому эндпоинт защищен отдельной учетной записью для сбора метрик (HTTP Basic) и проверяется
+     * раньше основной цепочки. Пользователи приложения здесь не аутентифицируются.
+     * Без пароля (metrics.scrape.password) эндпоинт закрыт для всех.
+     *
+     * @param http Объект для настройки безопасности HTTP-запросов.
+     * @param username Имя учетной записи сборщика метрик
+     * @param password Пароль учетной записи сборщика метрик
+     * @return SecurityFilterChain для /actuator/prometheus
+     * @throws Exception Если произошла ошибка при настройке.
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain prometheusFilterChain(HttpSecurity http,
+                                                     @Value("${metrics.scrape.username:prometheus}") String username,
+                                                     @Value("${metrics.scrape.password:}") String password) throws Exception {
+        boolean enabled = !password.isBlank();
+        // BCrypt с минимальной стоимостью: сравнение без утечки по времени и без нагрузки на пул хэширования паролей
+        PasswordEncoder scrapeEncoder = new BCryptPasswordEncoder(4);
+        DaoAuthenticationProvider scrapeAuthentication = new DaoAuthenticationProvider();
+        scrapeAuthentication.setPasswordEncoder(scrapeEncoder);
+        scrapeAuthentication.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername(username)
+                .password(scrapeEncoder.encode(password))
+                .roles("METRICS")
+                .build()));
+
+        http
+                .securityMatcher("/actuator/prometheus")
+                .csrf(AbstractHttpConfigurer::disable)
+                .authorizeHttpRequests(auth -> {
+                    if (enabled) {
+                        auth.anyRequest().hasRole("METRICS");
+                    } else {
+                        auth.anyRequest().denyAll();
+                    }
+                })
+                .httpBasic(Customizer.withDefaults())
+                .authenticationManager(new ProviderManager(scrapeAuthentication))  // Без основного менеджера и BCrypt-пула
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                );
+        return http.build();
+    }
+
+    /**
+     * Обработчик неудачного входа через форму.
+     * Перегрузка пула хэширования паролей - это не неверный пароль, поэтому отвечаем 503 с Retry-After.
+     *
+     * @return AuthenticationFailureHandler для формы входа
+     */
+    private AuthenticationFailureHandler loginFailureHandler() {
+        AuthenticationFailureHandler defaultHandler = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            if (exception instanceof PasswordHashingRejectedException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(PasswordHashingRejectedException.RETRY_AFTER_SECONDS));
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getMessage());
+                return;
+            }
+            defaultHandler.onAuthenticationFailure(request, response, exception);
+        };
+    }
+
     /**
      * Создает кодировщик паролей.
      * Используется для кодирования паролей пользователей.
+     * BCrypt выполняется в отдельном ограниченном пуле, а не в потоке запроса (см. {@link BoundedPasswordEncoder}).
      *
+     * @param meterRegistry Реестр метрик
+     * @param threads Количество потоков хэширования (0 - половина процессоров)
+     * @param queueCapacity Максимальная длина очереди хэширования
+     * @param timeoutMillis Максимальное время ожидания хэширования
      * @return PasswordEncoder, который использует алгоритм BCrypt.
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(); // Использование BCrypt для кодирования паролей
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${password.hashing.threads:0}") int threads,
+                                           @Value("${password.hashing.queue-capacity:100}") int queueCapacity,
+                                           @Value("${password.hashing.timeout-ms:5000}") long timeoutMillis) {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), // Использование BCrypt для кодирования паролей
+                poolSize, queueCapacity, timeoutMillis, meterRegistry);
     }
 
     /**
@@ -2,12 +2,18 @@ package oleborn.todospringtest.security.jwt_authentication;
 
 import lombok.*;
 import oleborn.todospringtest.model.jwt_authentication.Role;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedToken;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -21,9 +27,40 @@ import java.util.stream.Collectors;
 @NoArgsConstructor(access = AccessLevel.PRIVATE) // Lombok: генерирует приватный конструктор без аргументов
 public class UserPrincipal implements UserDetails {
 
+    // Роли по имени: разбор claims токена без исключений на неизвестных именах
+    private static final Map<String, Role> ROLES_BY_NAME = Arrays.stream(Role.values())
+            .collect(Collectors.toUnmodifiableMap(Role::name, Function.identity()));
+
+    private Long id; // id пользователя (владелец задач)
     private String username; // Имя пользователя
     private String password; // Пароль пользователя
     private List<Role> roles; // Список ролей пользователя
+    private int tokenVersion; // Текущая версия токенов пользователя
+
+    /**
+     * Восстановление пользователя из проверенного JWT-токена без обращения к базе данных.
+     * Пароль в токене не хранится и для уже выданного токена не нужен.
+     *
+     * @param verifiedToken Проверенный токен
+     * @return Пользователь с ролями из claims токена или пустой Optional, если в токене неизвестная роль
+     *         (например, роль переименовали после выдачи токена): такой токен не принимается
+     */
+    public static Optional<UserPrincipal> fromVerifiedToken(VerifiedToken verifiedToken) {
+        List<Role> roles = new ArrayList<>(verifiedToken.getAuthorities().size());
+        for (String authority : verifiedToken.getAuthorities()) {
+            Role role = ROLES_BY_NAME.get(authority.startsWith("ROLE_") ? authority.substring(5) : authority);
+            if (role == null) {
+                return Optional.empty();
+            }
+            roles.add(role);
+        }
+        return Optional.of(UserPrincipal.builder()
+                .id(verifiedToken.getUserId())
+                .username(verifiedToken.getSubject())
+                .roles(List.copyOf(roles))
+                .tokenVersion(verifiedToken.getTokenVersion())
+                .build());
+    }
 
     /**
      * Возвращает список прав доступа (ролей) пользователя.
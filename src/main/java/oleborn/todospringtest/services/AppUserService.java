@@ -21,6 +21,9 @@ public class AppUserService {
     @Resource
     private PasswordEncoder passwordEncoder;
 
+    @Resource
+    private UserPrincipalCache userPrincipalCache;
+
     public void registerAppUser(AuthDto authDto) {
         authDto.setPassword(passwordEncoder.encode(authDto.getPassword()));
         AppUserDto appUserDto = AppUserDto.builder()
@@ -29,5 +32,6 @@ public class AppUserService {
                 .roles(List.of(Role.USER))
                 .build();
         appUserRepository.save(new ModelMapper().map(appUserDto, AppUser.class));
+        userPrincipalCache.invalidate(appUserDto.getUsername());  // Изменение пользователя сбрасывает кэш
     }
 }
@@ -0,0 +1,54 @@
+package oleborn.todospringtest.services;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import oleborn.todospringtest.repository.AppUserRepository;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Назначение владельца задачам, созданным до привязки задач к пользователям.
+ * <p>
+ * Такие задачи хранятся с пустым owner_id и не видны ни в списке, ни в поиске, ни в выгрузке.
+ * При старте все они передаются пользователю {@code tasks.orphan-owner}. Повторный запуск ничего
+ * не меняет. Если задачи без владельца есть, а пользователь не задан или не существует,
+ * приложение не запускается: задачи не должны пропадать молча.
+ */
+@Slf4j
+@Component
+public class OrphanTaskBackfill implements ApplicationRunner {
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    @Resource
+    private AppUserRepository appUserRepository;
+
+    // Имя пользователя, которому передаются задачи без владельца
+    @Value("${tasks.orphan-owner:}")
+    private String orphanOwner;
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        long orphans = taskRepository.countByOwnerIsNull();
+        if (orphans == 0) {
+            return;
+        }
+        if (orphanOwner.isBlank()) {
+            throw new IllegalStateException(orphans + " tasks have no owner and are hidden from every user. "
+                    + "Set tasks.orphan-owner (env TASKS_ORPHAN_OWNER) to the username that should receive them");
+        }
+        AppUser owner = appUserRepository.findByUsername(orphanOwner)
+                .orElseThrow(() -> new IllegalStateException("tasks.orphan-owner user '" + orphanOwner
+                        + "' does not exist, " + orphans + " tasks without owner cannot be assigned"));
+
+        int assigned = taskRepository.assignOwnerToOrphans(owner);
+        log.info("Задачи без владельца ({}) переданы пользователю {}", assigned, orphanOwner);
+    }
+}
@@ -0,0 +1,250 @@
+package oleborn.todospringtest.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Рассылка изменений задач подписчикам Server-Sent Events.
+ * <p>
+ * Каждый подписчик получает только изменения своих задач и только после коммита.
+ * У подписчика своя ограниченная очередь ({@code tasks.events.buffer-size}); отправка идет
+ * в виртуальных потоках, поэтому медленный клиент не задерживает ни сохранение задачи, ни других
+ * подписчиков. Переполнение очереди обрабатывается по {@code tasks.events.overflow-policy}:
+ * DROP_OLDEST отбрасывает старые события и присылает клиенту событие {@code resync},
+ * DISCONNECT закрывает соединение (браузер переподключится сам).
+ * Heartbeat-комментарий раз в {@code tasks.events.heartbeat-ms} держит соединение
+ * через прокси и выявляет отключившихся клиентов.
+ */
+@Slf4j
+@Component
+public class TaskEventBroadcaster {
+
+    /**
+     * Что делать, если клиент не успевает читать события.
+     */
+    public enum OverflowPolicy {
+        DROP_OLDEST, // Отбросить самое старое событие и прислать resync
+        DISCONNECT   // Закрыть соединение
+    }
+
+    // Маркер heartbeat в очереди подписчика
+    private static final Object HEARTBEAT = new Object();
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    // Максимальное количество неотправленных событий у одного подписчика
+    @Value("${tasks.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${tasks.events.overflow-policy:DROP_OLDEST}")
+    private OverflowPolicy overflowPolicy;
+
+    // Максимальное количество одновременных подписчиков на экземпляр приложения (меньше server.tomcat.max-connections)
+    @Value("${tasks.events.max-subscribers:4096}")
+    private int maxSubscribers;
+
+    // Время жизни соединения; после него браузер переподключается
+    @Value("${tasks.events.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMillis;
+
+    // Подписчики по id владельца задач
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private Counter droppedCounter;
+    private Counter disconnectedCounter;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("tasks.events.subscribers", subscriberCount);
+        droppedCounter = meterRegistry.counter("tasks.events.dropped");
+        disconnectedCounter = meterRegistry.counter("tasks.events.slow.disconnected");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.values().forEach(ownerSubscribers -> ownerSubscribers.forEach(Subscriber::close));
+        senders.shutdownNow();
+    }
+
+    /**
+     * Подписка на изменения задач владельца.
+     *
+     * @param ownerId id владельца
+     * @return SSE-соединение или пустой Optional, если достигнут предел подписчиков
+     */
+    public Optional<SseEmitter> subscribe(Long ownerId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return Optional.empty();
+        }
+
+        Subscriber subscriber = new Subscriber(ownerId, new SseEmitter(emitterTimeoutMillis));
+        subscribers.compute(ownerId, (id, ownerSubscribers) -> {
+            Set<Subscriber> result = ownerSubscribers != null ? ownerSubscribers : ConcurrentHashMap.newKeySet();
+            result.add(subscriber);
+            return result;
+        });
+        subscriber.emitter.onCompletion(subscriber::close);
+        subscriber.emitter.onTimeout(subscriber::close);
+        subscriber.emitter.onError(error -> subscriber.close());
+        subscriber.enqueue(HEARTBEAT);  // Первый комментарий сразу отправляет заголовки ответа
+        return Optional.of(subscriber.emitter);
+    }
+
+    /**
+     * Закрытие всех подписок владельца (например, после отзыва его токенов).
+     * Без этого отозванная сессия получала бы события до истечения соединения.
+     *
+     * @param ownerId id владельца
+     */
+    public void disconnect(Long ownerId) {
+        Set<Subscriber> ownerSubscribers = subscribers.get(ownerId);
+        if (ownerSubscribers != null) {
+            ownerSubscribers.forEach(subscriber -> {
+                subscriber.close();
+                subscriber.emitter.complete();
+            });
+        }
+    }
+
+    /**
+     * Рассылка изменения задачи после коммита.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        Set<Subscriber> ownerSubscribers = subscribers.get(event.getOwnerId());
+        if (ownerSubscribers != null) {
+            ownerSubscribers.forEach(subscriber -> subscriber.enqueue(event));
+        }
+    }
+
+    /**
+     * Heartbeat всем подписчикам, у которых нет неотправленных событий.
+     */
+    @Scheduled(fixedRateString = "${tasks.events.heartbeat-ms:15000}")
+    public void heartbeat() {
+        subscribers.values().forEach(ownerSubscribers -> ownerSubscribers.forEach(Subscriber::heartbeat));
+    }
+
+    /**
+     * Подписчик: SSE-соединение и его ограниченная очередь событий.
+     * Очередь разбирает не больше одного потока отправки одновременно.
+     */
+    private final class Subscriber {
+
+        final Long ownerId;
+        final SseEmitter emitter;
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile boolean dropped; // События отбрасывались, клиенту нужен resync
+
+        Subscriber(Long ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+        }
+
+        void enqueue(Object item) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                if (overflowPolicy == OverflowPolicy.DISCONNECT) {
+                    disconnectedCounter.increment();
+                    close();
+                    emitter.complete();
+                    return;
+                }
+                queue.poll();  // DROP_OLDEST
+                dropped = true;
+                droppedCounter.increment();
+                if (!queue.offer(item)) {
+                    droppedCounter.increment();  // Очередь снова заполнили параллельно, отбрасываем новое событие
+                }
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        void heartbeat() {
+            if (queue.isEmpty()) {
+                enqueue(HEARTBEAT);
+            }
+        }
+
+        void drain() {
+            try {
+                Object item;
+                while (!closed.get() && (item = queue.poll()) != null) {
+                    if (dropped) {
+                        dropped = false;
+                        emitter.send(SseEmitter.event().name("resync").data("Some events were dropped, reload the task list"));
+                    }
+                    send(item);
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("SSE-подписчик задач {} отключился: {}", ownerId, e.getMessage());
+                close();  // Клиент ушел или соединение уже завершено
+            } finally {
+                draining.set(false);
+                // Событие могло прийти после последнего poll, но до сброса флага
+                if (!closed.get() && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+                    senders.execute(this::drain);
+                }
+            }
+        }
+
+        void send(Object item) throws IOException {
+            if (item == HEARTBEAT) {
+                emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            TaskChangedEvent event = (TaskChangedEvent) item;
+            emitter.send(SseEmitter.event()
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            queue.clear();
+            subscriberCount.decrementAndGet();
+            subscribers.computeIfPresent(ownerId, (id, ownerSubscribers) -> {
+                ownerSubscribers.remove(this);
+                return ownerSubscribers.isEmpty() ? null : ownerSubscribers;
+            });
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package oleborn.todospringtest.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Сервис выгрузки задач в формате NDJSON (одна JSON-строка на задачу).
+ * <p>
+ * Задачи владельца читаются потоком из {@link TaskRepository#streamByOwnerIdOrderById(Long)} в read-only транзакции
+ * и сразу пишутся в выходной поток, поэтому расход памяти не зависит от размера таблицы.
+ * Каждая прочитанная сущность отсоединяется от контекста персистентности,
+ * чтобы кэш первого уровня не рос вместе с выгрузкой.
+ */
+@Service
+public class TaskExportService {
+
+    // Размер буфера записи в ответ
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Выгрузка всех задач владельца в выходной поток.
+     *
+     * @param outputStream Поток ответа
+     * @param ownerId id владельца задач
+     * @return Количество выгруженных задач
+     * @throws IOException Если запись в поток не удалась (например, клиент закрыл соединение)
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream outputStream, Long ownerId) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(TaskDto.class);
+        BufferedOutputStream out = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+        long count = 0;
+
+        try (Stream<Task> tasks = taskRepository.streamByOwnerIdOrderById(ownerId)) {
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                out.write(writer.writeValueAsBytes(TaskDto.from(task)));
+                out.write('\n');
+                entityManager.detach(task);  // Не копим выгруженные сущности в контексте персистентности
+                count++;
+            }
+        }
+
+        out.flush();
+        return count;
+    }
+}
@@ -0,0 +1,271 @@
+package oleborn.todospringtest.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskImportReport;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис массового импорта задач из CSV или NDJSON.
+ * <p>
+ * Входной поток читается построчно, каждая строка проверяется теми же ограничениями,
+ * что и форма задачи ({@link Task}). Валидные задачи сохраняются батчами: одна транзакция
+ * и один JDBC-батч на {@code batchSize} строк. Если батч не сохранился, его строки
+ * сохраняются по одной, чтобы в отчет попали только действительно ошибочные строки.
+ */
+@Service
+@Slf4j
+public class TaskImportService {
+
+    /**
+     * Формат входных данных.
+     */
+    public enum Format {
+        CSV,    // title,description,status (строка заголовка необязательна)
+        NDJSON  // {"title": "...", "description": "...", "status": "..."} на каждой строке
+    }
+
+    private static final String CSV_HEADER = "title,description,status";
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private Validator validator;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Размер батча по умолчанию
+    @Value("${tasks.import.batch-size:500}")
+    private int defaultBatchSize;
+
+    // Максимальный размер батча, который может запросить клиент
+    @Value("${tasks.import.max-batch-size:5000}")
+    private int maxBatchSize;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Импорт задач из входного потока.
+     *
+     * @param inputStream Входной поток (тело запроса)
+     * @param format Формат строк
+     * @param batchSize Размер батча или null для значения по умолчанию
+     * @param ownerId id владельца импортируемых задач
+     * @return Отчет с количеством сохраненных задач и ошибками по строкам
+     * @throws IOException Если чтение входного потока не удалось
+     */
+    public TaskImportReport importTasks(InputStream inputStream, Format format, Integer batchSize, Long ownerId)
+            throws IOException {
+        int size = batchSize == null ? defaultBatchSize : Math.min(Math.max(batchSize, 1), maxBatchSize);
+        TaskImportReport report = new TaskImportReport();
+        List<Task> batch = new ArrayList<>(size);
+        List<Long> batchLines = new ArrayList<>(size);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+
+            try {
+                Task task = format == Format.CSV ? parseCsv(line) : parseNdjson(line);
+                String violations = validate(task);
+                if (violations != null) {
+                    report.addError(lineNumber, violations);
+                    continue;
+                }
+                batch.add(task);
+                batchLines.add(lineNumber);
+            } catch (JsonProcessingException e) {
+                report.addError(lineNumber, e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                report.addError(lineNumber, e.getMessage());
+                continue;
+            }
+
+            if (batch.size() >= size) {
+                flush(batch, batchLines, size, ownerId, report);
+            }
+        }
+        flush(batch, batchLines, size, ownerId, report);
+
+        log.info("Импорт задач завершен: сохранено {}, ошибок {}", report.getImportedCount(), report.getFailedCount());
+        return report;
+    }
+
+    // Сохранение накопленного батча в отдельной транзакции
+    private void flush(List<Task> batch, List<Long> batchLines, int batchSize, Long ownerId, TaskImportReport report) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(batch, batchSize, ownerId));
+            report.setImportedCount(report.getImportedCount() + batch.size());
+        } catch (RuntimeException e) {
+            // Батч откатился целиком: сохраняем строки по одной, чтобы найти ошибочные
+            for (int i = 0; i < batch.size(); i++) {
+                Task task = batch.get(i);
+                task.setId(null);  // id из отката больше не действителен
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(task), 1, ownerId));
+                    report.setImportedCount(report.getImportedCount() + 1);
+                } catch (RuntimeException rowException) {
+                    report.addError(batchLines.get(i), rootMessage(rowException));
+                }
+            }
+        }
+
+        batch.clear();
+        batchLines.clear();
+    }
+
+    // Вставка задач одним JDBC-батчем и очистка контекста персистентности
+    private void persist(List<Task> tasks, int batchSize, Long ownerId) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+        AppUser owner = entityManager.getReference(AppUser.class, ownerId);  // Ссылка на владельца без SELECT
+        for (Task task : tasks) {
+            task.setOwner(owner);
+            entityManager.persist(task);
+            // Слушатели получат событие только после коммита батча
+            eventPublisher.publishEvent(TaskChangedEvent.created(TaskDto.from(task), ownerId));
+        }
+        entityManager.flush();
+        entityManager.clear();  // Сохраненные задачи больше не нужны в кэше первого уровня
+    }
+
+    // Проверка ограничений сущности; null, если ошибок нет
+    private String validate(Task task) {
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            return "Task title cannot be empty";
+        }
+        Set<ConstraintViolation<Task>> violations = validator.validate(task);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private boolean isCsvHeader(String line) {
+        return line.replace(" ", "").equalsIgnoreCase(CSV_HEADER);
+    }
+
+    private Task parseCsv(String line) {
+        List<String> fields = parseCsvLine(line);
+        if (fields.size() != 3) {
+            throw new IllegalArgumentException("Expected 3 columns (" + CSV_HEADER + "), got " + fields.size());
+        }
+        return toTask(fields.get(0), fields.get(1), parseStatus(fields.get(2)));
+    }
+
+    private Task parseNdjson(String line) throws JsonProcessingException {
+        TaskDto taskDto = objectMapper.readValue(line, TaskDto.class);
+        return toTask(taskDto.getTitle(), taskDto.getDescription(), taskDto.getStatus());  // id из файла игнорируется
+    }
+
+    private Task toTask(String title, String description, TaskStatus status) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDescription(description == null || description.isEmpty() ? null : description);
+        task.setStatus(status);
+        return task;
+    }
+
+    private TaskStatus parseStatus(String value) {
+        if (value == null || value.isBlank()) {
+            return null;  // Отсутствие статуса сообщит валидация
+        }
+        try {
+            return TaskStatus.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown status: " + value);
+        }
+    }
+
+    // Разбор строки CSV с поддержкой кавычек ("a, b" и "" внутри кавычек)
+    private List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unclosed quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private String rootMessage(Throwable throwable) {
+        Throwable root = throwable;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+}
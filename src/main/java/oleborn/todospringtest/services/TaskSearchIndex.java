@@ -0,0 +1,632 @@
+package oleborn.todospringtest.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.LongStream;
+
+/**
+ * Полнотекстовый индекс задач в памяти приложения (инвертированный индекс по заголовку и описанию).
+ * <p>
+ * Замена поиску Postgres (search_vector из schema.sql) для установок, где схему БД менять нельзя.
+ * Включается настройкой {@code tasks.search.engine=memory}. Индекс строится при старте параллельно
+ * по диапазонам id, а дальше обновляется по {@link TaskChangedEvent} после коммита.
+ * Поиск не обращается к БД: задачи для страницы результатов берутся из самого индекса.
+ * <p>
+ * События после коммита двух параллельных транзакций могут прийти не в порядке коммитов, поэтому
+ * в индексе хранится версия задачи и снимки старше проиндексированного отбрасываются. Удаленная задача
+ * оставляет "надгробие" на {@code tasks.search.in-memory.tombstone-ttl-ms}, чтобы запоздавшее
+ * событие обновления не вернуло ее в индекс.
+ * <p>
+ * Ключ термина включает id владельца ("42:отчет"), поэтому поиск сразу ограничен задачами пользователя.
+ * Списки задач по термину хранятся как отсортированные long[] без упаковки в Long.
+ * <p>
+ * Синтаксис запроса повторяет websearch_to_tsquery, насколько это возможно без позиций слов:
+ * слова через пробел - И, {@code OR} (или {@code ИЛИ}, {@code |}) между группами - ИЛИ,
+ * {@code -слово} и {@code -"фраза"} - исключение задач, {@code слово*} - поиск по префиксу.
+ * Фраза в кавычках ищется как набор слов в любом порядке; группа из одних исключений ничего не находит.
+ * Результаты упорядочены от новых задач к старым (без ранжирования).
+ */
+@Slf4j
+@Component
+public class TaskSearchIndex {
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    // Движок полнотекстового поиска: postgres (по умолчанию) или memory
+    @Value("${tasks.search.engine:postgres}")
+    private String engine;
+
+    // Ширина диапазона id, загружаемого одним запросом при построении индекса
+    @Value("${tasks.search.in-memory.chunk-size:10000}")
+    private int chunkSize;
+
+    // Количество параллельных загрузок при построении индекса (не больше пула соединений)
+    @Value("${tasks.search.in-memory.build-threads:4}")
+    private int buildThreads;
+
+    // Сколько помнить удаленные задачи, мс (дольше, чем может запоздать событие после коммита)
+    @Value("${tasks.search.in-memory.tombstone-ttl-ms:60000}")
+    private long tombstoneTtlMillis;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Поля ниже читаются под read lock и меняются под write lock
+    private final TreeMap<String, Postings> terms = new TreeMap<>(); // "ownerId:термин" -> id задач
+    private final Map<Long, IndexedTask> tasks = new HashMap<>(); // id -> проиндексированная задача
+    private final LinkedHashMap<Long, Long> tombstones = new LinkedHashMap<>(); // id удаленной задачи -> время удаления (nanoTime)
+    private boolean building;
+
+    /**
+     * Индекс считается строящимся с момента создания: Tomcat принимает запросы до ApplicationReadyEvent,
+     * и события, пришедшие до построения, не должны потеряться или затереться снимком из БД.
+     */
+    @PostConstruct
+    void init() {
+        building = isEnabled();
+    }
+
+    /**
+     * Включен ли поиск по индексу в памяти.
+     *
+     * @return true, если tasks.search.engine=memory
+     */
+    public boolean isEnabled() {
+        return "memory".equalsIgnoreCase(engine);
+    }
+
+    /**
+     * Построение индекса при старте: диапазоны id загружаются и разбиваются на термины параллельно,
+     * затем результат вливается в индекс по порядку id.
+     * Изменения, пришедшие до или во время построения, важнее загруженного снимка, если он не новее их.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!isEnabled()) {
+            return;
+        }
+        long startTime = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            building = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        List<List<IndexedTask>> chunks = List.of();
+        try {
+            chunks = loadChunks();
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить индекс поиска задач, поиск вернет неполные результаты", e);
+        }
+
+        int taskCount;
+        int termCount;
+        lock.writeLock().lock();
+        try {
+            for (List<IndexedTask> chunk : chunks) {
+                for (IndexedTask task : chunk) {
+                    if (isNewer(task)) {
+                        add(task);
+                    }
+                }
+            }
+            building = false;
+            pruneTombstones();
+            taskCount = tasks.size();
+            termCount = terms.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс поиска задач построен за {} мс: задач {}, терминов {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime), taskCount, termCount);
+    }
+
+    // Параллельная загрузка диапазонов id; результат в порядке возрастания id
+    private List<List<IndexedTask>> loadChunks() {
+        List<Object[]> bounds = taskRepository.findIdBounds();
+        if (bounds.isEmpty() || bounds.get(0)[0] == null) {
+            return List.of();  // Задач нет
+        }
+        long minId = ((Number) bounds.get(0)[0]).longValue();
+        long maxId = ((Number) bounds.get(0)[1]).longValue();
+        List<Long> chunkStarts = LongStream.iterate(minId, start -> start <= maxId, start -> start + chunkSize)
+                .boxed()
+                .toList();
+
+        ForkJoinPool pool = new ForkJoinPool(buildThreads);
+        try {
+            // Параллельный стрим, запущенный из задачи пула, выполняется в этом пуле
+            return pool.submit(() -> chunkStarts.parallelStream()
+                    .map(start -> loadChunk(start, start + chunkSize))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Task search index build was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Task search index build failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<IndexedTask> loadChunk(long fromId, long toId) {
+        List<Object[]> rows = taskRepository.findIndexRowsByIdRange(fromId, toId);
+        List<IndexedTask> chunk = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            if (row[1] == null) {
+                continue;  // Задача без владельца никому не видна в поиске
+            }
+            chunk.add(new IndexedTask(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                    (String) row[2], (String) row[3], (TaskStatus) row[4], ((Number) row[5]).longValue()));
+        }
+        return chunk;
+    }
+
+    /**
+     * Обновление индекса после коммита изменения задачи.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        TaskDto task = event.getTask();
+        // Разбиение на термины до захвата блокировки
+        IndexedTask indexed = task == null ? null : new IndexedTask(task.getId(), event.getOwnerId(),
+                task.getTitle(), task.getDescription(), task.getStatus(),
+                task.getVersion() != null ? task.getVersion() : 0L);
+
+        lock.writeLock().lock();
+        try {
+            pruneTombstones();
+            if (indexed == null) {
+                remove(event.getTaskId());
+                tombstones.put(event.getTaskId(), System.nanoTime());
+            } else if (isNewer(indexed)) {
+                add(indexed);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Поиск задач владельца.
+     *
+     * @param ownerId id владельца
+     * @param query Поисковый запрос
+     * @param offset Сколько найденных задач пропустить
+     * @param limit Максимальное количество задач в ответе
+     * @return Найденные задачи от новых к старым (не привязаны к контексту персистентности)
+     */
+    public List<Task> search(Long ownerId, String query, int offset, int limit) {
+        List<QueryGroup> groups = parse(query);
+        if (groups.isEmpty()) {
+            return List.of();
+        }
+        String keyPrefix = ownerId + ":";
+
+        lock.readLock().lock();
+        try {
+            Postings found = null;
+            for (QueryGroup group : groups) {
+                Postings groupFound = matchAll(keyPrefix, group.required);
+                for (List<QueryTerm> excluded : group.excluded) {
+                    if (groupFound.size == 0) {
+                        break;
+                    }
+                    groupFound = difference(groupFound, matchAll(keyPrefix, excluded));
+                }
+                found = found == null ? groupFound : union(found, groupFound);
+            }
+
+            List<Task> page = new ArrayList<>();
+            for (int i = found.size - 1 - offset; i >= 0 && page.size() < limit; i--) {
+                page.add(tasks.get(found.ids[i]).toTask());  // add/remove держат термины и задачи согласованными
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Размер индекса.
+     *
+     * @return Количество задач и терминов, идет ли построение
+     */
+    public Map<String, Object> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("enabled", isEnabled());
+            result.put("building", building);
+            result.put("tasks", tasks.size());
+            result.put("terms", terms.size());
+            result.put("tombstones", tombstones.size());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Задачи, содержащие все термины группы (И). Вызывается под read lock
+    private Postings matchAll(String keyPrefix, List<QueryTerm> group) {
+        Postings matched = null;
+        for (QueryTerm term : group) {
+            String key = keyPrefix + term.text;
+            Postings termMatched = term.prefix ? matchPrefix(key) : terms.getOrDefault(key, Postings.EMPTY);
+            matched = matched == null ? termMatched : intersect(matched, termMatched);
+            if (matched.size == 0) {
+                break;
+            }
+        }
+        return matched;
+    }
+
+    // Задачи, содержащие хотя бы один термин с префиксом. Вызывается под read lock
+    private Postings matchPrefix(String keyPrefix) {
+        SortedMap<String, Postings> range = terms.subMap(keyPrefix, keyPrefix + Character.MAX_VALUE);
+        if (range.isEmpty()) {
+            return Postings.EMPTY;
+        }
+        if (range.size() == 1) {
+            return range.values().iterator().next();
+        }
+
+        int total = 0;
+        for (Postings postings : range.values()) {
+            total += postings.size;
+        }
+        long[] ids = new long[total];
+        int position = 0;
+        for (Postings postings : range.values()) {
+            System.arraycopy(postings.ids, 0, ids, position, postings.size);
+            position += postings.size;
+        }
+        Arrays.sort(ids);
+
+        int size = 0;  // Одна задача может содержать несколько терминов с префиксом
+        for (int i = 0; i < ids.length; i++) {
+            if (size == 0 || ids[size - 1] != ids[i]) {
+                ids[size++] = ids[i];
+            }
+        }
+        return new Postings(ids, size);
+    }
+
+    // Пересечение отсортированных списков
+    private static Postings intersect(Postings first, Postings second) {
+        long[] ids = new long[Math.min(first.size, second.size)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.size && j < second.size) {
+            long a = first.ids[i];
+            long b = second.ids[j];
+            if (a == b) {
+                ids[size++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new Postings(ids, size);
+    }
+
+    // Задачи первого списка, которых нет во втором
+    private static Postings difference(Postings first, Postings second) {
+        long[] ids = new long[first.size];
+        int size = 0;
+        int j = 0;
+        for (int i = 0; i < first.size; i++) {
+            long id = first.ids[i];
+            while (j < second.size && second.ids[j] < id) {
+                j++;
+            }
+            if (j >= second.size || second.ids[j] != id) {
+                ids[size++] = id;
+            }
+        }
+        return new Postings(ids, size);
+    }
+
+    // Объединение отсортированных списков без повторов
+    private static Postings union(Postings first, Postings second) {
+        long[] ids = new long[first.size + second.size];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.size || j < second.size) {
+            long next;
+            if (j >= second.size || (i < first.size && first.ids[i] < second.ids[j])) {
+                next = first.ids[i++];
+            } else if (i >= first.size || second.ids[j] < first.ids[i]) {
+                next = second.ids[j++];
+            } else {
+                next = first.ids[i++];
+                j++;
+            }
+            ids[size++] = next;
+        }
+        return new Postings(ids, size);
+    }
+
+    // Снимок новее проиндексированной версии и задача не удалена. Вызывается под write lock
+    private boolean isNewer(IndexedTask task) {
+        if (tombstones.containsKey(task.id)) {
+            return false;
+        }
+        IndexedTask current = tasks.get(task.id);
+        return current == null || current.version < task.version;
+    }
+
+    // Удаление устаревших надгробий (по порядку удаления). Пока идет построение, надгробия нужны
+    // для отбрасывания снимков из БД. Вызывается под write lock
+    private void pruneTombstones() {
+        if (building) {
+            return;
+        }
+        long expiredBefore = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(tombstoneTtlMillis);
+        Iterator<Long> deletedAt = tombstones.values().iterator();
+        while (deletedAt.hasNext() && deletedAt.next() - expiredBefore < 0) {
+            deletedAt.remove();
+        }
+    }
+
+    // Добавление или замена задачи в индексе. Вызывается под write lock
+    private void add(IndexedTask task) {
+        remove(task.id);  // Термины прежней версии задачи не должны остаться в индексе
+        tasks.put(task.id, task);
+        for (String key : task.keys) {
+            terms.computeIfAbsent(key, k -> new Postings()).add(task.id);
+        }
+    }
+
+    // Удаление задачи из индекса. Вызывается под write lock
+    private void remove(long taskId) {
+        IndexedTask previous = tasks.remove(taskId);
+        if (previous == null) {
+            return;
+        }
+        for (String key : previous.keys) {
+            Postings postings = terms.get(key);
+            if (postings != null) {
+                postings.remove(taskId);
+                if (postings.size == 0) {
+                    terms.remove(key);
+                }
+            }
+        }
+    }
+
+    // Разбор запроса: группы, объединенные через ИЛИ; внутри группы обязательные термины (И)
+    // и исключения (-слово, -"фраза"). Группы без обязательных терминов отбрасываются
+    private static List<QueryGroup> parse(String query) {
+        List<QueryGroup> groups = new ArrayList<>();
+        if (query == null || query.isBlank()) {
+            return groups;
+        }
+        QueryGroup current = new QueryGroup();
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            if (Character.isWhitespace(query.charAt(i))) {
+                i++;
+                continue;
+            }
+            boolean negated = query.charAt(i) == '-';
+            if (negated) {
+                i++;
+            }
+
+            String text;
+            boolean phrase = i < length && query.charAt(i) == '"';
+            if (phrase) {
+                int end = query.indexOf('"', i + 1);
+                end = end < 0 ? length : end;  // Незакрытая кавычка - фраза до конца запроса
+                text = query.substring(i + 1, end);
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < length && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                text = query.substring(i, end);
+                i = end;
+            }
+
+            if (!phrase && !negated && (text.equalsIgnoreCase("or") || text.equalsIgnoreCase("или") || text.equals("|"))) {
+                if (!current.required.isEmpty()) {
+                    groups.add(current);
+                }
+                current = new QueryGroup();
+                continue;
+            }
+
+            boolean prefix = !phrase && text.endsWith("*");
+            List<String> words = tokenize(text);
+            if (words.isEmpty()) {
+                continue;  // Одиночный "-" или знаки препинания
+            }
+            List<QueryTerm> clause = new ArrayList<>(words.size());
+            for (int w = 0; w < words.size(); w++) {
+                clause.add(new QueryTerm(words.get(w), prefix && w == words.size() - 1));
+            }
+            if (negated) {
+                current.excluded.add(clause);
+            } else {
+                current.required.addAll(clause);
+            }
+        }
+        if (!current.required.isEmpty()) {
+            groups.add(current);
+        }
+        return groups;
+    }
+
+    // Разбиение текста на термины: буквы и цифры в нижнем регистре, "ё" приравнена к "е"
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                char lower = Character.toLowerCase(c);
+                word.append(lower == 'ё' ? 'е' : lower);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Отсортированный по возрастанию список id задач без упаковки в Long.
+     */
+    private static final class Postings {
+
+        static final Postings EMPTY = new Postings(new long[0], 0);
+
+        long[] ids;
+        int size;
+
+        Postings() {
+            this(new long[2], 0);
+        }
+
+        Postings(long[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+        // Новые задачи получают большие id, поэтому обычно это добавление в конец
+        void add(long id) {
+            int position = size;
+            if (size > 0 && ids[size - 1] >= id) {
+                position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;  // Уже есть
+                }
+                position = -position - 1;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Проиндексированная задача: поля для страницы результатов, версия и ключи терминов для удаления из индекса.
+     */
+    private static final class IndexedTask {
+
+        final long id;
+        final String title;
+        final String description;
+        final TaskStatus status;
+        final long version; // Версия задачи (@Version), по ней отбрасываются запоздавшие снимки
+        final String[] keys; // "ownerId:термин" без повторов
+
+        IndexedTask(long id, long ownerId, String title, String description, TaskStatus status, long version) {
+            this.id = id;
+            this.title = title;
+            this.description = description;
+            this.status = status;
+            this.version = version;
+
+            Set<String> uniqueKeys = new LinkedHashSet<>();
+            for (String word : tokenize(title)) {
+                uniqueKeys.add(ownerId + ":" + word);
+            }
+            for (String word : tokenize(description)) {
+                uniqueKeys.add(ownerId + ":" + word);
+            }
+            this.keys = uniqueKeys.toArray(new String[0]);
+        }
+
+        Task toTask() {
+            Task task = new Task();
+            task.setId(id);
+            task.setTitle(title);
+            task.setDescription(description);
+            task.setStatus(status);
+            task.setVersion(version);
+            return task;
+        }
+    }
+
+    /**
+     * Группа запроса между ИЛИ: задачи со всеми обязательными терминами, кроме содержащих любое исключение.
+     */
+    private static final class QueryGroup {
+
+        final List<QueryTerm> required = new ArrayList<>();
+        final List<List<QueryTerm>> excluded = new ArrayList<>(); // Каждое исключение - термины через И (слово или фраза)
+    }
+
+    /**
+     * Термин запроса.
+     */
+    private static final class QueryTerm {
+
+        final String text;
+        final boolean prefix; // Искать все термины, начинающиеся с text
+
+        QueryTerm(String text, boolean prefix) {
+            this.text = text;
+            this.prefix = prefix;
+        }
+    }
+}
@@ -1,49 +1,282 @@
 package oleborn.todospringtest.services;
 
 import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnit;
 import oleborn.todospringtest.annotation.MeasureExecutionTime;
+import oleborn.todospringtest.events.TaskChangedEvent;
 import oleborn.todospringtest.exceptions.InvalidTaskException;
 import oleborn.todospringtest.exceptions.TaskNotFoundException;
 import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskPage;
+import oleborn.todospringtest.model.TaskSearchPage;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.repository.AppUserRepository;
 import oleborn.todospringtest.repository.TaskRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 @Service  // Аннотация для обозначения сервиса
 public class TaskService {
 
+    // Максимальный размер страницы списка задач
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Максимальный номер страницы поиска (OFFSET дальних страниц дорог, уточняйте запрос)
+    public static final int MAX_SEARCH_PAGE = 50;
+
+    // Максимальное количество id в одном массовом удалении
+    public static final int MAX_BULK_DELETE = 1000;
+
     @Resource
     private TaskRepository taskRepository;
 
-    // Получение всех задач
+    @Resource
+    private AppUserRepository appUserRepository;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+
+    @Resource
+    private TaskSearchIndex taskSearchIndex;
+
+    @Resource
+    private TaskWriteBehindBuffer taskWriteBehindBuffer;
+
+    // Получение страницы задач владельца по курсору (keyset-пагинация по id)
+    // status - фильтр по статусу (null - все), direction - порядок сортировки по id
+    // after - id последней задачи предыдущей страницы, before - id первой задачи следующей страницы
     @MeasureExecutionTime
-    public List<Task> findAll() {
-        return taskRepository.findAll();  // JpaRepository автоматически находит все записи в таблице
+    public TaskPage findPage(Long ownerId, TaskStatus status, Sort.Direction direction, Long after, Long before, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        Limit limit = Limit.of(pageSize + 1);  // Лишняя строка показывает, есть ли задачи дальше
+        boolean ascending = direction != Sort.Direction.DESC;
+
+        if (before != null) {
+            // Идем от курсора в обратную сторону и разворачиваем результат
+            List<Task> tasks = new ArrayList<>(ascending
+                    ? seekDown(ownerId, status, before, limit)
+                    : seekUp(ownerId, status, before, limit));
+            boolean hasPrevious = tasks.size() > pageSize;
+            if (hasPrevious) {
+                tasks.remove(pageSize);
+            }
+            Collections.reverse(tasks);  // Возвращаем порядок страницы
+            return toPage(tasks, pageSize, hasPrevious, true);
+        }
+
+        long cursor = after != null ? after : (ascending ? 0L : Long.MAX_VALUE);
+        List<Task> tasks = new ArrayList<>(ascending
+                ? seekUp(ownerId, status, cursor, limit)
+                : seekDown(ownerId, status, cursor, limit));
+        boolean hasNext = tasks.size() > pageSize;
+        if (hasNext) {
+            tasks.remove(pageSize);
+        }
+        return toPage(tasks, pageSize, after != null, hasNext);
+    }
+
+    // Задачи с id больше курсора, по возрастанию id
+    private List<Task> seekUp(Long ownerId, TaskStatus status, long cursor, Limit limit) {
+        return status == null
+                ? taskRepository.findByOwnerIdAndIdGreaterThanOrderByIdAsc(ownerId, cursor, limit)
+                : taskRepository.findByOwnerIdAndStatusAndIdGreaterThanOrderByIdAsc(ownerId, status, cursor, limit);
+    }
+
+    // Задачи с id меньше курсора, по убыванию id
+    private List<Task> seekDown(Long ownerId, TaskStatus status, long cursor, Limit limit) {
+        return status == null
+                ? taskRepository.findByOwnerIdAndIdLessThanOrderByIdDesc(ownerId, cursor, limit)
+                : taskRepository.findByOwnerIdAndStatusAndIdLessThanOrderByIdDesc(ownerId, status, cursor, limit);
+    }
+
+    private TaskPage toPage(List<Task> tasks, int pageSize, boolean hasPrevious, boolean hasNext) {
+        Long previousCursor = hasPrevious && !tasks.isEmpty() ? tasks.get(0).getId() : null;
+        Long nextCursor = hasNext && !tasks.isEmpty() ? tasks.get(tasks.size() - 1).getId() : null;
+        return new TaskPage(tasks, pageSize, previousCursor, nextCursor);
+    }
+
+    // Полнотекстовый поиск по задачам владельца: в Postgres (страницы по релевантности)
+    // или в индексе в памяти при tasks.search.engine=memory (страницы от новых задач к старым)
+    @MeasureExecutionTime
+    public TaskSearchPage search(Long ownerId, String query, int page, int size) {
+        int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        int pageNumber = Math.min(Math.max(page, 0), MAX_SEARCH_PAGE);
+        if (query == null || query.isBlank()) {
+            return new TaskSearchPage("", List.of(), 0, pageSize, false);  // Пустой запрос не идет в БД
+        }
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<Task> tasks = new ArrayList<>(taskSearchIndex.isEnabled()
+                ? taskSearchIndex.search(ownerId, query, pageNumber * pageSize, pageSize + 1)
+                : taskRepository.search(ownerId, query, pageSize + 1, pageNumber * pageSize));
+        boolean hasNext = tasks.size() > pageSize && pageNumber < MAX_SEARCH_PAGE;
+        if (tasks.size() > pageSize) {
+            tasks.remove(pageSize);
+        }
+        return new TaskSearchPage(query, tasks, pageNumber, pageSize, hasNext);
+    }
+
+    // Включен ли поиск по индексу в памяти (tasks.search.engine=memory): синтаксис запроса у него проще
+    public boolean isMemorySearchEnabled() {
+        return taskSearchIndex.isEnabled();
     }
 
-    // Получение задачи по ID
+    // Получение задачи владельца по ID.
+    // Загрузка по первичному ключу идет через кэш второго уровня, владелец проверяется уже в памяти
+    // (id владельца берется из ссылки без загрузки пользователя)
     @MeasureExecutionTime
-    public Task findById(Long id) {
+    public Task findById(Long id, Long ownerId) {
         return taskRepository.findById(id)
-                .orElseThrow(() -> new TaskNotFoundException(id));  // Исключение, если задача не найдена
+                .filter(task -> task.getOwner() != null && task.getOwner().getId().equals(ownerId))
+                .orElseThrow(() -> new TaskNotFoundException(id));  // Исключение, если задача не найдена или чужая
     }
 
-    // Сохранение новой задачи
+    // Сохранение задачи владельца: новая задача (id == null) или обновление существующей
     @MeasureExecutionTime
-    public Task save(Task task) {
+    @Transactional
+    public Task save(Task task, Long ownerId) {
         if (task.getTitle() == null || task.getTitle().isBlank()) {
             throw new InvalidTaskException("Task title cannot be empty");  // Исключение, если заголовок пустой
         }
-        return taskRepository.save(task);  // Сохранение задачи в БД
+
+        if (task.getId() == null) {
+            task.setVersion(null);  // Версию новой задачи назначает Hibernate
+            task.setOwner(appUserRepository.getReferenceById(ownerId));  // Ссылка на владельца без SELECT
+            Task saved = taskRepository.save(task);  // Сохранение задачи в БД
+            eventPublisher.publishEvent(TaskChangedEvent.created(TaskDto.from(saved), ownerId));
+            return saved;
+        }
+
+        // Обновляем только поля формы, владелец остается прежним
+        Task existing = findById(task.getId(), ownerId);
+        if (!Objects.equals(task.getVersion(), existing.getVersion())) {
+            // Форма построена по устаревшей версии: задачу уже изменили, не перезаписываем чужие изменения.
+            // Изменения между этой проверкой и коммитом отловит UPDATE ... WHERE version = ? от Hibernate
+            throw new ObjectOptimisticLockingFailureException(Task.class, task.getId());
+        }
+        TaskStatus oldStatus = existing.getStatus();
+        existing.setTitle(task.getTitle());
+        existing.setDescription(task.getDescription());
+        existing.setStatus(task.getStatus());
+        // Обновление задачи в БД сразу, а не при коммите: @Version увеличивается только при flush,
+        // а событие (индекс поиска, SSE, outbox) должно нести новую версию
+        Task saved = taskRepository.saveAndFlush(existing);
+        eventPublisher.publishEvent(TaskChangedEvent.updated(TaskDto.from(saved), ownerId, oldStatus));
+        return saved;
+    }
+
+    // Включен ли режим отложенной записи обновлений (tasks.write-behind.enabled)
+    public boolean isWriteBehindEnabled() {
+        return taskWriteBehindBuffer.isEnabled();
     }
 
-    // Удаление задачи по ID
+    // Обновление существующей задачи владельца через буфер отложенной записи (см. TaskWriteBehindBuffer).
+    // Версия от клиента не проверяется: из обновлений через буфер побеждает последнее, но изменение в обход
+    // буфера после этого вызова отбрасывает отложенное обновление (409 для DURABLE).
+    // BUFFERED - результат null сразу после попадания в буфер, DURABLE - сохраненная задача после коммита пачки
     @MeasureExecutionTime
-    public void deleteById(Long id) {
-        if (!taskRepository.existsById(id)) {
-            throw new TaskNotFoundException(id);  // Исключение, если задача не существует
+    public CompletableFuture<TaskDto> saveWriteBehind(Task task, Long ownerId, TaskWriteBehindBuffer.Durability durability) {
+        if (task.getTitle() == null || task.getTitle().isBlank()) {
+            throw new InvalidTaskException("Task title cannot be empty");  // Исключение, если заголовок пустой
         }
-        taskRepository.deleteById(id);  // Удаление задачи
+        // Исключение, если задача не существует или чужая (обычно из кэша второго уровня).
+        // Прочитанная версия - основа отложенного обновления
+        Task current = findById(task.getId(), ownerId);
+        return taskWriteBehindBuffer.submit(task, ownerId, current.getVersion(), durability);
+    }
+
+    // Удаление задачи владельца по ID одним запросом к БД
+    @MeasureExecutionTime
+    @Transactional
+    public void deleteById(Long id, Long ownerId) {
+        if (deleteOwned(List.of(id), ownerId).isEmpty()) {
+            throw new TaskNotFoundException(id);  // Исключение, если задача не существует или чужая
+        }
+    }
+
+    // Смена статуса задачи владельца одним UPDATE без предварительного SELECT.
+    // expectedVersion - версия, которую видел клиент; возвращает новую версию задачи
+    @MeasureExecutionTime
+    @Transactional
+    public long updateStatus(Long id, Long ownerId, TaskStatus status, long expectedVersion) {
+        List<Object[]> rows = taskRepository.updateStatusReturningPrevious(id, ownerId, status.name(), expectedVersion);
+        if (rows.isEmpty()) {
+            findById(id, ownerId);  // Исключение, если задача не существует или чужая
+            throw new ObjectOptimisticLockingFailureException(Task.class, id);  // Иначе задачу уже изменили
+        }
+
+        Object[] row = rows.get(0);
+        TaskStatus oldStatus = TaskStatus.valueOf(row[0].toString());
+        long newVersion = ((Number) row[1]).longValue();
+        TaskDto updated = TaskDto.builder()
+                .id(id)
+                .title((String) row[2])
+                .description((String) row[3])
+                .status(status)
+                .version(newVersion)
+                .build();
+        eventPublisher.publishEvent(TaskChangedEvent.updated(updated, ownerId, oldStatus));
+        evictAfterCompletion(List.of(id));
+        return newVersion;
+    }
+
+    // Массовое удаление задач владельца одним запросом; чужие и несуществующие id пропускаются.
+    // Возвращает id действительно удаленных задач
+    @MeasureExecutionTime
+    @Transactional
+    public List<Long> deleteAllById(Collection<Long> ids, Long ownerId) {
+        if (ids.size() > MAX_BULK_DELETE) {
+            throw new InvalidTaskException("Cannot delete more than " + MAX_BULK_DELETE + " tasks at once");
+        }
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return deleteOwned(ids, ownerId);
+    }
+
+    // DELETE ... RETURNING: удаление, статусы для событий и id для очистки кэша за один запрос
+    private List<Long> deleteOwned(Collection<Long> ids, Long ownerId) {
+        List<Object[]> rows = taskRepository.deleteOwnedReturningStatus(ownerId, ids);
+        List<Long> deletedIds = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            Long id = ((Number) row[0]).longValue();
+            TaskStatus status = TaskStatus.valueOf(row[1].toString());
+            deletedIds.add(id);
+            eventPublisher.publishEvent(TaskChangedEvent.deleted(id, ownerId, status));
+        }
+        if (!deletedIds.isEmpty()) {
+            evictAfterCompletion(deletedIds);
+        }
+        return deletedIds;
+    }
+
+    // Нативные UPDATE/DELETE Hibernate не отслеживает, поэтому измененные задачи убираем из кэша второго уровня сами.
+    // Очистка после завершения транзакции, чтобы параллельное чтение не вернуло старую строку в кэш до коммита
+    private void evictAfterCompletion(List<Long> ids) {
+        jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                ids.forEach(id -> cache.evict(Task.class, id));
+            }
+        });
     }
 }
@@ -0,0 +1,92 @@
+package oleborn.todospringtest.services;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики задач по статусам для дашборда.
+ * <p>
+ * Чтение счетчиков не обращается к базе данных. Счетчики меняются по {@link TaskChangedEvent}
+ * после коммита транзакции, поэтому откатившиеся изменения не учитываются.
+ * Периодическая сверка с {@code GROUP BY status} ({@code tasks.stats.reconcile-interval-ms})
+ * исправляет расхождения из-за изменений в обход сервиса и гонок со сверкой.
+ */
+@Slf4j
+@Component
+public class TaskStatusCounters {
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    // Количество задач по статусам; map заполняется один раз и дальше не меняется
+    private final Map<TaskStatus, AtomicLong> counters = new EnumMap<>(TaskStatus.class);
+
+    public TaskStatusCounters() {
+        for (TaskStatus status : TaskStatus.values()) {
+            counters.put(status, new AtomicLong());
+        }
+    }
+
+    /**
+     * Учет изменения задачи после коммита транзакции.
+     *
+     * @param event Событие изменения задачи
+     */
+    @TransactionalEventListener
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.getOldStatus() == event.getNewStatus()) {
+            return;  // Статус не изменился
+        }
+        if (event.getOldStatus() != null) {
+            counters.get(event.getOldStatus()).decrementAndGet();
+        }
+        if (event.getNewStatus() != null) {
+            counters.get(event.getNewStatus()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Сверка счетчиков с базой данных. Выполняется при старте и затем периодически.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${tasks.stats.reconcile-interval-ms:60000}")
+    @Transactional(readOnly = true)
+    public void reconcile() {
+        Map<TaskStatus, Long> actual = new EnumMap<>(TaskStatus.class);
+        List<Object[]> rows = taskRepository.countByStatus();
+        for (Object[] row : rows) {
+            actual.put((TaskStatus) row[0], (Long) row[1]);
+        }
+
+        for (TaskStatus status : TaskStatus.values()) {
+            long expected = actual.getOrDefault(status, 0L);
+            long previous = counters.get(status).getAndSet(expected);
+            if (previous != expected) {
+                log.debug("Счетчик задач {} исправлен при сверке: {} -> {}", status, previous, expected);
+            }
+        }
+    }
+
+    /**
+     * Текущие значения счетчиков.
+     *
+     * @return Количество задач по каждому статусу в порядке объявления статусов
+     */
+    public Map<TaskStatus, Long> snapshot() {
+        Map<TaskStatus, Long> result = new LinkedHashMap<>();
+        counters.forEach((status, counter) -> result.put(status, counter.get()));
+        return result;
+    }
+}
@@ -0,0 +1,410 @@
+package oleborn.todospringtest.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.exceptions.TaskNotFoundException;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Буфер отложенной записи (write-behind) для частых обновлений задач ({@code tasks.write-behind.enabled}).
+ * <p>
+ * Обновления складываются в память и объединяются по id задачи: из нескольких обновлений одной задачи
+ * до сброса в БД попадает только последнее. Буфер сбрасывается, когда в нем набирается
+ * {@code tasks.write-behind.batch-size} задач или раз в {@code tasks.write-behind.flush-interval-ms}:
+ * одна транзакция, один SELECT и один JDBC-батч UPDATE на пачку. Сбрасывает всегда один поток,
+ * поэтому обновления одной задачи пишутся в порядке поступления.
+ * <p>
+ * Среди обновлений, прошедших через буфер, побеждает последнее; версия, которую видел клиент, не проверяется.
+ * Но буфер запоминает версию задачи на момент постановки обновления, и если до сброса задачу изменили
+ * в обход буфера (форма, PUT без durability, PATCH статуса), отложенное обновление отбрасывается
+ * с ObjectOptimisticLockingFailureException, а не затирает более новое изменение. Собственные сбросы
+ * буфера конфликтом не считаются. События изменения публикуются при сбросе, как при обычном сохранении
+ * (счетчики, индекс поиска, SSE и outbox видят одно изменение на пачку), кэш второго уровня
+ * обновляет сам Hibernate.
+ * <p>
+ * Буфер ограничен {@code tasks.write-behind.max-pending} задачами; обновление задачи, уже стоящей в буфере,
+ * места не занимает. Если буфер заполнен, вызывающий ждет не дольше {@code tasks.write-behind.offer-timeout-ms},
+ * затем получает RejectedExecutionException (503). При остановке накопленные обновления сбрасываются,
+ * а не попавшие в последний сброс завершаются с RejectedExecutionException.
+ */
+@Slf4j
+@Component
+public class TaskWriteBehindBuffer {
+
+    /**
+     * Когда считать обновление выполненным.
+     */
+    public enum Durability {
+        BUFFERED, // Сразу после попадания в буфер; обновление теряется, если приложение упадет до сброса
+        DURABLE   // После коммита пачки с обновлением
+    }
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${tasks.write-behind.enabled:false}")
+    private boolean enabled;
+
+    // Максимальное количество задач с несброшенными обновлениями
+    @Value("${tasks.write-behind.max-pending:10000}")
+    private int maxPending;
+
+    // Количество задач в одной транзакции и одном JDBC-батче
+    @Value("${tasks.write-behind.batch-size:500}")
+    private int batchSize;
+
+    // Сколько ждать места в заполненном буфере, мс
+    @Value("${tasks.write-behind.offer-timeout-ms:100}")
+    private long offerTimeoutMillis;
+
+    // Несброшенные обновления по id задачи
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flusher = Executors.newVirtualThreadPerTaskExecutor();
+    private volatile boolean closed;
+
+    private Semaphore capacity;  // Свободные места в буфере (по одному на задачу)
+    private TransactionTemplate transactionTemplate;
+    private Counter coalescedCounter;
+    private Counter rejectedCounter;
+    private Counter failedCounter;
+    private Counter conflictCounter;
+    private Timer flushTimer;
+
+    // Версии, записанные сбросами буфера: id -> [версия до сброса, версия после]. Обновление,
+    // поставленное в буфер во время сброса той же задачи, видело версию "до" и не должно считаться конфликтом
+    private Cache<Long, long[]> ownWrites;
+
+    @PostConstruct
+    void init() {
+        capacity = new Semaphore(maxPending);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gaugeMapSize("tasks.write-behind.pending", List.of(), pending);
+        coalescedCounter = meterRegistry.counter("tasks.write-behind.coalesced");
+        rejectedCounter = meterRegistry.counter("tasks.write-behind.rejected");
+        failedCounter = meterRegistry.counter("tasks.write-behind.failed");
+        conflictCounter = meterRegistry.counter("tasks.write-behind.conflicts");
+        ownWrites = Caffeine.newBuilder()
+                .maximumSize(maxPending)
+                .expireAfterWrite(Duration.ofMinutes(1))
+                .build();
+        flushTimer = Timer.builder("tasks.write-behind.flush")
+                .description("Время сброса пачки отложенных обновлений задач в БД")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Остановка: новые обновления не принимаются, накопленные сбрасываются в БД.
+     */
+    @PreDestroy
+    void shutdown() {
+        closed = true;
+        flushLock.lock();  // Дожидаемся текущего сброса
+        try {
+            flushPending(false);
+            // Обновления, поставленные между проверкой closed в submit и последним сбросом
+            RejectedExecutionException shutDown = new RejectedExecutionException("Write-behind buffer is shut down");
+            for (PendingUpdate update : drain().values()) {
+                update.waiters.forEach(waiter -> waiter.completeExceptionally(shutDown));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        flusher.shutdown();
+    }
+
+    /**
+     * Включен ли режим отложенной записи.
+     *
+     * @return true, если tasks.write-behind.enabled=true
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Постановка обновления задачи в буфер. Владелец задачи должен быть уже проверен вызывающим.
+     *
+     * @param task Задача с id и новыми полями (версия из задачи не учитывается)
+     * @param ownerId id владельца задачи
+     * @param observedVersion Версия задачи в БД на момент постановки (прочитанная вызывающим)
+     * @param durability BUFFERED - результат null сразу, DURABLE - задача после коммита пачки
+     *                   (завершается с TaskNotFoundException, если задачу удалили до сброса,
+     *                   и с ObjectOptimisticLockingFailureException, если ее изменили в обход буфера)
+     * @return Результат обновления
+     * @throws RejectedExecutionException Если буфер заполнен или приложение останавливается
+     */
+    public CompletableFuture<TaskDto> submit(Task task, Long ownerId, long observedVersion, Durability durability) {
+        if (closed) {
+            throw new RejectedExecutionException("Write-behind buffer is shut down");
+        }
+
+        // Ожидающих сохраняем только для DURABLE: частые BUFFERED-обновления одной задачи не копят future
+        CompletableFuture<TaskDto> written = durability == Durability.DURABLE
+                ? new CompletableFuture<>()
+                : CompletableFuture.completedFuture(null);
+        Long taskId = task.getId();
+
+        // Задача уже в буфере: объединяем без ожидания места
+        if (pending.computeIfPresent(taskId, (id, existing) -> merge(existing, task, observedVersion, written)) != null) {
+            coalescedCounter.increment();
+        } else {
+            acquireCapacity();
+            AtomicBoolean coalesced = new AtomicBoolean();
+            pending.compute(taskId, (id, existing) -> {
+                coalesced.set(existing != null);
+                return merge(existing != null ? existing : new PendingUpdate(ownerId), task, observedVersion, written);
+            });
+            if (coalesced.get()) {
+                capacity.release();  // Задачу параллельно поставили в буфер, место не нужно
+                coalescedCounter.increment();
+            }
+        }
+
+        if (closed) {
+            // Остановка началась после проверки выше: последний сброс мог уже пройти
+            PendingUpdate orphan = pending.remove(taskId);
+            if (orphan != null) {
+                capacity.release();
+                RejectedExecutionException shutDown = new RejectedExecutionException("Write-behind buffer is shut down");
+                orphan.waiters.forEach(waiter -> waiter.completeExceptionally(shutDown));
+                throw shutDown;
+            }
+            // Иначе обновление уже забрал сброс или остановка: они и завершат ожидающих
+        }
+
+        if (!closed && pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> flush(true));  // Набралась полная пачка, не ждем таймера
+        }
+        return written;
+    }
+
+    /**
+     * Сброс буфера по таймеру.
+     */
+    @Scheduled(fixedDelayString = "${tasks.write-behind.flush-interval-ms:200}")
+    public void flushScheduled() {
+        if (enabled) {
+            flush(false);
+        }
+    }
+
+    // Сброс буфера пачками; fullBatchesOnly - только полные пачки (остаток дождется таймера)
+    private void flush(boolean fullBatchesOnly) {
+        flushRequested.set(false);
+        if (!flushLock.tryLock()) {
+            return;  // Буфер уже сбрасывает другой поток
+        }
+        try {
+            flushPending(fullBatchesOnly);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Вызывается под flushLock
+    private void flushPending(boolean fullBatchesOnly) {
+        while (!pending.isEmpty() && (!fullBatchesOnly || pending.size() >= batchSize)) {
+            Map<Long, PendingUpdate> batch = drain();
+            flushTimer.record(() -> write(batch));
+        }
+    }
+
+    // Изъятие из буфера до batchSize задач. Новое обновление изъятой задачи попадет в следующую пачку
+    private Map<Long, PendingUpdate> drain() {
+        Map<Long, PendingUpdate> batch = new HashMap<>();
+        Iterator<Long> ids = pending.keySet().iterator();
+        while (ids.hasNext() && batch.size() < batchSize) {
+            Long id = ids.next();
+            PendingUpdate update = pending.remove(id);
+            if (update != null) {
+                batch.put(id, update);
+                capacity.release();
+            }
+        }
+        return batch;
+    }
+
+    // Новые поля задачи поверх отложенного обновления. Вызывается внутри pending.compute
+    private static PendingUpdate merge(PendingUpdate update, Task task, long observedVersion,
+                                       CompletableFuture<TaskDto> written) {
+        update.title = task.getTitle();
+        update.description = task.getDescription();
+        update.status = task.getStatus();
+        update.baseVersion = observedVersion;  // Последний вызывающий видел самое свежее состояние задачи
+        if (!written.isDone()) {
+            update.waiters.add(written);  // Только DURABLE
+        }
+        return update;
+    }
+
+    // Запись пачки одной транзакцией; если она не удалась, задачи пишутся по одной
+    private void write(Map<Long, PendingUpdate> batch) {
+        FlushResult result;
+        try {
+            result = transactionTemplate.execute(status -> apply(batch));
+        } catch (RuntimeException batchException) {
+            log.warn("Пачка отложенных обновлений ({} задач) не сохранилась, сохраняем по одной", batch.size(), batchException);
+            batch.forEach((id, update) -> {
+                try {
+                    complete(Map.of(id, update), transactionTemplate.execute(status -> apply(Map.of(id, update))));
+                } catch (RuntimeException rowException) {
+                    failedCounter.increment();
+                    log.warn("Отложенное обновление задачи {} не сохранилось", id, rowException);
+                    update.waiters.forEach(waiter -> waiter.completeExceptionally(rowException));
+                }
+            });
+            return;
+        }
+        complete(batch, result);
+    }
+
+    // Применение пачки в текущей транзакции: один SELECT, изменение полей и один JDBC-батч UPDATE.
+    // Задачи, измененные в обход буфера после постановки обновления, не трогаются
+    private FlushResult apply(Map<Long, PendingUpdate> batch) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+        FlushResult result = new FlushResult();
+        Map<Long, TaskStatus> oldStatuses = new HashMap<>();
+        List<Task> changed = new ArrayList<>(batch.size());
+        for (Task task : taskRepository.findAllById(batch.keySet())) {
+            PendingUpdate update = batch.get(task.getId());
+            if (task.getOwner() == null || !task.getOwner().getId().equals(update.ownerId)) {
+                continue;  // Владелец проверен при постановке в буфер и не меняется
+            }
+            if (!isBasedOn(update, task)) {
+                result.conflicts.add(task.getId());
+                continue;
+            }
+            oldStatuses.put(task.getId(), task.getStatus());
+            task.setTitle(update.title);
+            task.setDescription(update.description);
+            task.setStatus(update.status);
+            changed.add(task);
+        }
+        entityManager.flush();  // UPDATE ... WHERE version = ? одним батчем; после него у задач новые версии
+
+        for (Task task : changed) {
+            TaskDto saved = TaskDto.from(task);
+            Long ownerId = batch.get(task.getId()).ownerId;
+            eventPublisher.publishEvent(TaskChangedEvent.updated(saved, ownerId, oldStatuses.get(task.getId())));
+            result.written.put(task.getId(), saved);
+        }
+        return result;
+    }
+
+    // Версия в БД - та, что видел вызывающий, или та, что получилась после сброса этой задачи буфером,
+    // начатого с версии вызывающего
+    private boolean isBasedOn(PendingUpdate update, Task task) {
+        long current = task.getVersion();
+        if (current == update.baseVersion) {
+            return true;
+        }
+        long[] own = ownWrites.getIfPresent(task.getId());
+        return own != null && own[0] == update.baseVersion && own[1] == current;
+    }
+
+    // Уведомление ожидающих после коммита; задач без результата нет в БД или их изменили в обход буфера
+    private void complete(Map<Long, PendingUpdate> batch, FlushResult result) {
+        batch.forEach((id, update) -> {
+            TaskDto saved = result.written.get(id);
+            if (saved != null) {
+                ownWrites.put(id, new long[]{saved.getVersion() - 1, saved.getVersion()});
+                update.waiters.forEach(waiter -> waiter.complete(saved));
+            } else if (result.conflicts.contains(id)) {
+                conflictCounter.increment();
+                log.debug("Отложенное обновление задачи {} отброшено: задачу изменили в обход буфера", id);
+                ObjectOptimisticLockingFailureException conflict = new ObjectOptimisticLockingFailureException(Task.class, id);
+                update.waiters.forEach(waiter -> waiter.completeExceptionally(conflict));
+            } else {
+                failedCounter.increment();
+                TaskNotFoundException notFound = new TaskNotFoundException(id);
+                update.waiters.forEach(waiter -> waiter.completeExceptionally(notFound));
+            }
+        });
+    }
+
+    // Ожидание свободного места в буфере не дольше offerTimeoutMillis
+    private void acquireCapacity() {
+        try {
+            if (capacity.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejectedCounter.increment();
+        throw new RejectedExecutionException("Write-behind buffer is full");
+    }
+
+    // Последние поля задачи и все, кто ждет их сохранения. Меняется только внутри pending.compute
+    private static final class PendingUpdate {
+        private final Long ownerId;
+        private final List<CompletableFuture<TaskDto>> waiters = new ArrayList<>();
+        private String title;
+        private String description;
+        private TaskStatus status;
+        private long baseVersion; // Версия задачи, которую видел последний вызывающий
+
+        private PendingUpdate(Long ownerId) {
+            this.ownerId = ownerId;
+        }
+    }
+
+    // Результат записи пачки: сохраненные задачи и задачи, измененные в обход буфера
+    private static final class FlushResult {
+        private final Map<Long, TaskDto> written = new HashMap<>();
+        private final Set<Long> conflicts = new HashSet<>();
+    }
+}
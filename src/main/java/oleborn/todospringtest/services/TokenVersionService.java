@@ -0,0 +1,76 @@
+package oleborn.todospringtest.services;
+
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.repository.AppUserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Сервис версий JWT-токенов пользователей.
+ * <p>
+ * В каждом токене хранится claim {@code ver} — версия токенов пользователя на момент выдачи.
+ * Отзыв увеличивает версию, и все ранее выданные токены перестают приниматься.
+ * Текущие версии хранятся в памяти: к базе данных обращаемся только при первом запросе пользователя,
+ * поэтому проверка токена на горячем пути обходится без запроса в Postgres.
+ * <p>
+ * Отзыв виден сразу только на том экземпляре приложения, где он выполнен.
+ * При нескольких экземплярах используйте режим {@code jwt.stateless=false}.
+ */
+@Service
+public class TokenVersionService {
+
+    @Resource
+    private AppUserRepository appUserRepository;
+
+    @Resource
+    private UserPrincipalCache userPrincipalCache;
+
+    // Текущая версия токенов по имени пользователя
+    private final ConcurrentMap<String, Integer> versions = new ConcurrentHashMap<>();
+
+    /**
+     * Проверка, что токен выдан с актуальной версией.
+     *
+     * @param username Имя пользователя
+     * @param tokenVersion Версия из токена
+     * @return true, если версия актуальна, иначе false (в том числе если пользователь удален)
+     */
+    public boolean isCurrent(String username, int tokenVersion) {
+        Integer current = versions.get(username);
+        if (current == null) {
+            // Загружаем версию вне блокировок map, чтобы запрос в БД не держал монитор
+            Optional<Integer> loaded = appUserRepository.findTokenVersionByUsername(username);
+            if (loaded.isEmpty()) {
+                return false;
+            }
+            current = versions.merge(username, loaded.get(), Math::max);
+        }
+        return current == tokenVersion;
+    }
+
+    /**
+     * Отзыв всех выданных пользователю токенов.
+     *
+     * @param username Имя пользователя
+     */
+    @Transactional
+    public void revoke(String username) {
+        appUserRepository.incrementTokenVersion(username);
+        Optional<Integer> version = appUserRepository.findTokenVersionByUsername(username);
+        // Память меняем только после коммита: при откате версия в памяти не должна обогнать БД,
+        // а параллельная загрузка до коммита не должна вернуть в кэш пользователя со старой версией
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                version.ifPresent(committed -> versions.merge(username, committed, Math::max));
+                userPrincipalCache.invalidate(username);  // В кэше пользователь со старой версией токенов
+            }
+        });
+    }
+}
@@ -0,0 +1,114 @@
+package oleborn.todospringtest.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш пользователей для {@link UserPrincipalService#loadUserByUsername(String)}.
+ * <p>
+ * Ограничен по размеру ({@code user.cache.maximum-size}) и по времени жизни записи
+ * ({@code user.cache.ttl-seconds}). Любое изменение пользователя (регистрация, роли, пароль,
+ * отзыв токенов) должно вызывать {@link #invalidate(String)}, иначе изменения
+ * станут видны только после истечения записи.
+ * <p>
+ * Загрузка идет без блокировок, поэтому она может прочитать пользователя до коммита изменения,
+ * а положить в кэш уже после {@link #invalidate(String)}. Такие загрузки отличает счетчик сбросов:
+ * если он изменился за время загрузки, результат возвращается, но в кэше не остается.
+ */
+@Component
+public class UserPrincipalCache {
+
+    // Максимальное количество пользователей в кэше
+    @Value("${user.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    // Время жизни записи в секундах
+    @Value("${user.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Cache<String, UserPrincipal> cache;
+
+    // Количество сбросов кэша; увеличивается до удаления записи
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Создание кэша после внедрения настроек.
+     */
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Получение пользователя из кэша или загрузка при промахе.
+     * Загрузка выполняется вне блокировок кэша, чтобы запрос в БД не держал монитор.
+     *
+     * @param username Имя пользователя
+     * @param loader Загрузка пользователя из базы данных
+     * @return Пользователь
+     */
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        UserPrincipal cached = cache.getIfPresent(username);
+        if (cached != null) {
+            return cached;
+        }
+        long invalidationsBefore = invalidations.get();
+        UserPrincipal loaded = loader.apply(username);
+        cache.put(username, loaded);
+        if (invalidations.get() != invalidationsBefore) {
+            // За время загрузки был сброс: загруженный пользователь мог устареть (например, старая версия токенов).
+            // Сброс после этой проверки сам удалит запись, поэтому проверять после put достаточно
+            cache.asMap().remove(username, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Удаление пользователя из кэша после изменения его данных.
+     *
+     * @param username Имя пользователя
+     */
+    public void invalidate(String username) {
+        invalidations.incrementAndGet();
+        cache.invalidate(username);
+    }
+
+    /**
+     * Очистка всего кэша.
+     */
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Статистика кэша (попадания, промахи, вытеснения).
+     *
+     * @return Снимок статистики
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Примерное количество записей в кэше.
+     *
+     * @return Количество записей
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+}
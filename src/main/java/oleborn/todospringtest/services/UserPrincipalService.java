@@ -15,15 +15,25 @@ public class UserPrincipalService implements UserDetailsService {
     @Resource
     private AppUserRepository appUserRepository;
 
+    // Кэш пользователей: форма входа и JWT-фильтр не ходят в БД за одним и тем же пользователем
+    @Resource
+    private UserPrincipalCache userPrincipalCache;
+
     @Override
     public UserPrincipal loadUserByUsername(String username) throws UsernameNotFoundException {
+        return userPrincipalCache.get(username, this::loadFromDatabase);
+    }
+
+    private UserPrincipal loadFromDatabase(String username) {
         AppUser user = appUserRepository.findByUsername(username)
             .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
 
         return UserPrincipal.builder()
+            .id(user.getId())
             .username(user.getUsername())
             .password(user.getPassword())
             .roles(user.getRoles())
+            .tokenVersion(user.getTokenVersion())
             .build();
     }
-}
\ No newline at end of file
+}
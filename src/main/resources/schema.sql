@@ -0,0 +1,15 @@
+-- Скрипт выполняется при каждом старте после обновления схемы Hibernate, поэтому все команды идемпотентны
+
+-- Таблица task раньше создавалась с IDENTITY: сдвигаем task_seq за уже выданные id
+SELECT setval('task_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM task) + 50, (SELECT last_value FROM task_seq)));
+
+-- Индекс (status, id) не нужен: все запросы списка идут по idx_task_owner_status_id (см. Task).
+-- ddl-auto=update индексы не удаляет, поэтому удаляем его здесь
+DROP INDEX IF EXISTS idx_task_status_id;
+
+-- Полнотекстовый поиск по задачам: вычисляемый tsvector по заголовку и описанию и GIN-индекс по нему.
+-- Конфигурация russian стеммит русские слова, а латиницу обрабатывает английским стеммером
+ALTER TABLE task ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('russian', coalesce(title, '') || ' ' || coalesce(description, ''))) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_task_search_vector ON task USING GIN (search_vector);
@@ -0,0 +1,193 @@
+package oleborn.todospringtest.outbox;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.AbstractPostgresTest;
+import oleborn.todospringtest.model.OutboxEvent;
+import oleborn.todospringtest.repository.OutboxEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Передача outbox в приемник: пачки, откат при ошибке приемника и пропуск строк,
+ * заблокированных другим экземпляром relay (FOR UPDATE SKIP LOCKED).
+ * Транзакции relay должны реально коммититься, поэтому тесты идут без тестовой транзакции.
+ */
+@Import(OutboxRelayTest.Config.class)
+@TestPropertySource(properties = {
+        "tasks.outbox.enabled=true",
+        "tasks.outbox.batch-size=2"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest extends AbstractPostgresTest {
+
+    @Resource
+    private OutboxRelay outboxRelay;
+
+    @Resource
+    private OutboxEventRepository outboxEventRepository;
+
+    @Resource
+    private RecordingSink sink;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        sink.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    void relaysAllEventsInBatchesAndDeletesThem() {
+        List<Long> ids = saveEvents(5);
+        double relayedBefore = meterRegistry.get("tasks.outbox.relayed").counter().count();  // Реестр общий для тестов
+
+        outboxRelay.relay();
+
+        assertThat(sink.batches).extracting(List::size).containsExactly(2, 2, 1);
+        assertThat(sink.relayedIds()).containsExactlyElementsOf(ids);
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(meterRegistry.get("tasks.outbox.relayed").counter().count() - relayedBefore).isEqualTo(5.0);
+        assertThat(meterRegistry.get("tasks.outbox.lag").timeGauge().value(TimeUnit.MILLISECONDS)).isZero();
+    }
+
+    @Test
+    void keepsBatchWhenSinkFails() {
+        List<Long> ids = saveEvents(3);
+        sink.failing.set(true);
+
+        outboxRelay.relay();
+
+        assertThat(sink.relayedIds()).isEmpty();
+        assertThat(outboxEventRepository.count()).isEqualTo(3);  // Транзакция пачки откатилась
+        assertThat(meterRegistry.get("tasks.outbox.lag").timeGauge().value(TimeUnit.MILLISECONDS)).isPositive();
+
+        sink.failing.set(false);
+        outboxRelay.relay();
+
+        assertThat(sink.relayedIds()).containsExactlyElementsOf(ids);
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    @Test
+    void skipsRowsLockedByAnotherRelay() throws Exception {
+        List<Long> ids = saveEvents(5);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+        // Другой экземпляр relay держит блокировку первых двух строк
+        CompletableFuture<List<Long>> otherRelay = CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> {
+            List<Long> lockedIds = outboxEventRepository.lockNextBatch(2).stream().map(OutboxEvent::getId).toList();
+            locked.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return lockedIds;
+        }));
+        assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+        outboxRelay.relay();  // Не ждет блокировок, забирает остальные строки
+
+        assertThat(sink.relayedIds()).containsExactlyElementsOf(ids.subList(2, 5));
+        release.countDown();
+        assertThat(otherRelay.get(10, TimeUnit.SECONDS)).containsExactlyElementsOf(ids.subList(0, 2));
+
+        outboxRelay.relay();  // Блокировка снята (транзакция завершилась без удаления), строки переданы
+
+        assertThat(sink.relayedIds()).containsExactlyElementsOf(List.of(
+                ids.get(2), ids.get(3), ids.get(4), ids.get(0), ids.get(1)));
+        assertThat(outboxEventRepository.count()).isZero();
+    }
+
+    private List<Long> saveEvents(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OutboxEvent event = new OutboxEvent();
+            event.setAggregateId((long) i);
+            event.setOwnerId(1L);
+            event.setEventType("UPDATED");
+            event.setPayload("{}");
+            event.setCreatedAt(Instant.now().minusSeconds(1));
+            ids.add(outboxEventRepository.save(event).getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Приемник, запоминающий пачки; может падать по требованию теста.
+     */
+    static class RecordingSink implements OutboxSink {
+
+        final List<List<OutboxEvent>> batches = new ArrayList<>();
+        final AtomicBoolean failing = new AtomicBoolean();
+
+        @Override
+        public synchronized void send(List<OutboxEvent> events) {
+            if (failing.get()) {
+                throw new IllegalStateException("Sink is down");
+            }
+            batches.add(List.copyOf(events));
+        }
+
+        synchronized List<Long> relayedIds() {
+            return batches.stream().flatMap(List::stream).map(OutboxEvent::getId).toList();
+        }
+
+        synchronized void reset() {
+            batches.clear();
+            failing.set(false);
+        }
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        RecordingSink recordingSink() {
+            return new RecordingSink();
+        }
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+        @Bean
+        OutboxRelay outboxRelay() {
+            return new OutboxRelay();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package oleborn.todospringtest.repository;
+
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.AbstractPostgresTest;
+import oleborn.todospringtest.config.TaskCacheConfig;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskSearchPage;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import oleborn.todospringtest.model.jwt_authentication.Role;
+import oleborn.todospringtest.services.TaskSearchIndex;
+import oleborn.todospringtest.services.TaskService;
+import oleborn.todospringtest.services.TaskWriteBehindBuffer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Полнотекстовый поиск задач в Postgres: ранжирование, синтаксис websearch_to_tsquery,
+ * видимость только своих задач и постраничный вывод через limit + 1.
+ */
+@Import({TaskService.class, TaskCacheConfig.class})
+class TaskRepositorySearchTest extends AbstractPostgresTest {
+
+    @Resource
+    private TaskRepository taskRepository;
+
+    @Resource
+    private TaskService taskService;
+
+    @Resource
+    private TestEntityManager entityManager;
+
+    @MockBean  // Поиск в памяти выключен (isEnabled() == false), TaskService идет в Postgres
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private TaskWriteBehindBuffer taskWriteBehindBuffer;
+
+    private AppUser owner;
+    private AppUser stranger;
+
+    @BeforeEach
+    void setUp() {
+        owner = entityManager.persist(user("owner"));
+        stranger = entityManager.persist(user("stranger"));
+    }
+
+    @Test
+    void ranksTasksWithMoreMatchesFirst() {
+        Task weak = task(owner, "Купить молоко", "и забрать отчет");
+        Task strong = task(owner, "Квартальный отчет", "отчет по продажам, отчет для директора");
+        task(owner, "Позвонить маме", "в воскресенье");
+        entityManager.flush();
+
+        List<Task> found = taskRepository.search(owner.getId(), "отчет", 10, 0);
+
+        assertThat(found).extracting(Task::getId).containsExactly(strong.getId(), weak.getId());
+    }
+
+    @Test
+    void supportsWebsearchSyntax() {
+        Task quarterly = task(owner, "Квартальный отчет", "сдать в пятницу");
+        Task yearly = task(owner, "Годовой отчет", "квартальный план не нужен");
+        Task budget = task(owner, "Бюджет отдела", "на следующий год");
+        entityManager.flush();
+
+        // Фраза в кавычках: слова подряд
+        assertThat(taskRepository.search(owner.getId(), "\"квартальный отчет\"", 10, 0))
+                .extracting(Task::getId).containsExactly(quarterly.getId());
+        // Минус исключает слово
+        assertThat(taskRepository.search(owner.getId(), "отчет -пятница", 10, 0))
+                .extracting(Task::getId).containsExactly(yearly.getId());
+        // or - любое из слов
+        assertThat(taskRepository.search(owner.getId(), "бюджет or годовой", 10, 0))
+                .extracting(Task::getId).containsExactlyInAnyOrder(yearly.getId(), budget.getId());
+        // Синтаксические ошибки websearch_to_tsquery не выбрасывает
+        assertThat(taskRepository.search(owner.getId(), "\"отчет & | (", 10, 0))
+                .extracting(Task::getId).containsExactlyInAnyOrder(quarterly.getId(), yearly.getId());
+    }
+
+    @Test
+    void findsOnlyOwnTasks() {
+        Task own = task(owner, "Квартальный отчет", null);
+        task(stranger, "Квартальный отчет", null);
+        entityManager.flush();
+
+        assertThat(taskRepository.search(owner.getId(), "отчет", 10, 0))
+                .extracting(Task::getId).containsExactly(own.getId());
+    }
+
+    @Test
+    void pagesWithOneExtraRow() {
+        for (int i = 0; i < 5; i++) {
+            task(owner, "Отчет номер " + i, null);
+        }
+        entityManager.flush();
+
+        TaskSearchPage first = taskService.search(owner.getId(), "отчет", 0, 2);
+        TaskSearchPage last = taskService.search(owner.getId(), "отчет", 2, 2);
+
+        assertThat(first.getTasks()).hasSize(2);
+        assertThat(first.isHasNext()).isTrue();
+        assertThat(last.getTasks()).hasSize(1);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(taskService.search(owner.getId(), "  ", 0, 2).getTasks()).isEmpty();
+    }
+
+    private AppUser user(String username) {
+        return AppUser.builder()
+                .username(username)
+                .password("{noop}password")
+                .roles(List.of(Role.USER))
+                .build();
+    }
+
+    private Task task(AppUser taskOwner, String title, String description) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDescription(description);
+        task.setStatus(TaskStatus.RESEARCHING);
+        task.setOwner(taskOwner);
+        return entityManager.persist(task);
+    }
+}
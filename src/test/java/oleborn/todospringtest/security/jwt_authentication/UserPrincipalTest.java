@@ -0,0 +1,35 @@
+package oleborn.todospringtest.security.jwt_authentication;
+
+import oleborn.todospringtest.model.jwt_authentication.Role;
+import oleborn.todospringtest.model.jwt_authentication.util.VerifiedToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Восстановление пользователя из claims проверенного токена: известные роли переносятся,
+ * токен с неизвестной ролью не принимается (без исключения в JWT-фильтре).
+ */
+class UserPrincipalTest {
+
+    @Test
+    void restoresRolesFromClaims() {
+        UserPrincipal principal = UserPrincipal.fromVerifiedToken(token(List.of("ROLE_USER", "ADMIN"))).orElseThrow();
+
+        assertThat(principal.getRoles()).containsExactly(Role.USER, Role.ADMIN);
+        assertThat(principal.getId()).isEqualTo(1L);
+        assertThat(principal.getTokenVersion()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsTokenWithUnknownRole() {
+        assertThat(UserPrincipal.fromVerifiedToken(token(List.of("ROLE_USER", "ROLE_MODERATOR")))).isEmpty();
+    }
+
+    private VerifiedToken token(List<String> authorities) {
+        return new VerifiedToken("owner", 1L, authorities, new Date(System.currentTimeMillis() + 60_000), 3);
+    }
+}
@@ -0,0 +1,198 @@
+package oleborn.todospringtest.services;
+
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Индекс поиска в памяти: разбор запроса, И/ИЛИ, исключения, фразы, префиксы, обновление и удаление задач,
+ * порядок событий после коммита и построение индекса при старте.
+ */
+class TaskSearchIndexTest {
+
+    private static final long OWNER = 1L;
+    private static final long STRANGER = 2L;
+
+    private TaskSearchIndex index;
+    private TaskRepository taskRepository;
+
+    @BeforeEach
+    void setUp() {
+        index = new TaskSearchIndex();
+        taskRepository = mock(TaskRepository.class);
+        ReflectionTestUtils.setField(index, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(index, "engine", "memory");
+        ReflectionTestUtils.setField(index, "chunkSize", 100);
+        ReflectionTestUtils.setField(index, "buildThreads", 1);
+        ReflectionTestUtils.setField(index, "tombstoneTtlMillis", 60_000L);
+    }
+
+    @Test
+    void wordsAreJoinedWithAnd() {
+        created(1, OWNER, "Квартальный отчет", "для директора", 0);
+        created(2, OWNER, "Годовой отчет", null, 0);
+
+        assertThat(ids("отчет")).containsExactly(2L, 1L);  // От новых задач к старым
+        assertThat(ids("квартальный отчет")).containsExactly(1L);
+        assertThat(ids("ОТЧЁТ, директора!")).containsExactly(1L);  // Регистр, "ё" и знаки препинания
+        assertThat(ids("отчет бюджет")).isEmpty();
+    }
+
+    @Test
+    void groupsAreJoinedWithOr() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        created(2, OWNER, "Бюджет отдела", null, 0);
+        created(3, OWNER, "Позвонить маме", null, 0);
+
+        assertThat(ids("отчет OR бюджет")).containsExactly(2L, 1L);
+        assertThat(ids("отчет или маме")).containsExactly(3L, 1L);
+        assertThat(ids("квартальный отчет | позвонить маме")).containsExactly(3L, 1L);
+        assertThat(ids("or")).isEmpty();
+    }
+
+    @Test
+    void starMatchesPrefix() {
+        created(1, OWNER, "Отчеты за квартал", null, 0);
+        created(2, OWNER, "Отчетность отдела", "отчет", 0);
+        created(3, OWNER, "Отпуск", null, 0);
+
+        assertThat(ids("отчет*")).containsExactly(2L, 1L);
+        assertThat(ids("от*")).containsExactly(3L, 2L, 1L);
+        assertThat(ids("отчет* отдела")).containsExactly(2L);
+        assertThat(ids("отчет")).containsExactly(2L);  // Без звездочки - только целое слово
+    }
+
+    @Test
+    void minusExcludesWordsAndPhrases() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        created(2, OWNER, "Отчет", "черновик", 0);
+        created(3, OWNER, "Годовой отчет", "черновик для директора", 0);
+
+        assertThat(ids("отчет -черновик")).containsExactly(1L);  // Пример из подсказки на странице поиска
+        assertThat(ids("отчет -\"черновик для\"")).containsExactly(2L, 1L);
+        assertThat(ids("отчет -черн*")).containsExactly(1L);
+        assertThat(ids("-черновик")).isEmpty();  // Без обязательных слов группа ничего не находит
+        assertThat(ids("директора OR отчет -черновик")).containsExactly(3L, 1L);
+        assertThat(ids("отчет - черновик")).containsExactly(3L, 2L);  // Одиночный минус не исключение
+    }
+
+    @Test
+    void quotedPhraseMatchesAllItsWords() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        created(2, OWNER, "Отчет", "квартальный", 0);
+        created(3, OWNER, "Квартальный бюджет", null, 0);
+
+        assertThat(ids("\"квартальный отчет\"")).containsExactly(2L, 1L);  // Порядок слов не учитывается
+        assertThat(ids("\"квартальный отчет")).containsExactly(2L, 1L);  // Незакрытая кавычка
+        assertThat(ids("\"or\"")).isEmpty();  // В кавычках это слово, а не ИЛИ
+    }
+
+    @Test
+    void searchIsScopedToOwner() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        created(2, STRANGER, "Квартальный отчет", null, 0);
+
+        assertThat(ids("отчет")).containsExactly(1L);
+    }
+
+    @Test
+    void updateReplacesTermsAndDeleteRemovesTask() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        updated(1, OWNER, "Бюджет отдела", null, 1);
+
+        assertThat(ids("отчет")).isEmpty();
+        assertThat(ids("бюджет")).containsExactly(1L);
+        assertThat(index.search(OWNER, "бюджет", 0, 10)).extracting(Task::getVersion).containsExactly(1L);
+
+        index.onTaskChanged(TaskChangedEvent.deleted(1L, OWNER, TaskStatus.RESEARCHING));
+        assertThat(ids("бюджет")).isEmpty();
+        assertThat(index.stats()).containsEntry("tasks", 0).containsEntry("terms", 0);
+    }
+
+    @Test
+    void pagesFromNewestToOldest() {
+        for (long id = 1; id <= 5; id++) {
+            created(id, OWNER, "Отчет " + id, null, 0);
+        }
+
+        assertThat(index.search(OWNER, "отчет", 0, 2)).extracting(Task::getId).containsExactly(5L, 4L);
+        assertThat(index.search(OWNER, "отчет", 4, 2)).extracting(Task::getId).containsExactly(1L);
+    }
+
+    @Test
+    void staleSnapshotDoesNotReplaceNewerOne() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        updated(1, OWNER, "Бюджет отдела", null, 2);
+        updated(1, OWNER, "Устаревшее название", null, 1);  // Событие пришло позже, чем коммит версии 2
+
+        assertThat(ids("бюджет")).containsExactly(1L);
+        assertThat(ids("устаревшее")).isEmpty();
+    }
+
+    @Test
+    void lateUpdateDoesNotResurrectDeletedTask() {
+        created(1, OWNER, "Квартальный отчет", null, 0);
+        index.onTaskChanged(TaskChangedEvent.deleted(1L, OWNER, TaskStatus.RESEARCHING));
+        updated(1, OWNER, "Квартальный отчет", "правка", 1);
+
+        assertThat(ids("отчет")).isEmpty();
+        assertThat(index.stats()).containsEntry("tasks", 0);
+    }
+
+    @Test
+    void buildKeepsEventsNewerThanSnapshotAndDropsOrphanPostings() {
+        index.init();  // Индекс строится: события до ApplicationReadyEvent применяются сразу
+        updated(1, OWNER, "Новое название", null, 3);
+        index.onTaskChanged(TaskChangedEvent.deleted(2L, OWNER, TaskStatus.RESEARCHING));
+
+        when(taskRepository.findIdBounds()).thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        when(taskRepository.findIndexRowsByIdRange(anyLong(), anyLong())).thenReturn(List.of(
+                new Object[]{1L, OWNER, "Старое название", null, TaskStatus.RESEARCHING, 2L},
+                new Object[]{2L, OWNER, "Удаленная задача", null, TaskStatus.RESEARCHING, 0L},
+                new Object[]{3L, OWNER, "Старое описание", null, TaskStatus.COMPLETED, 0L}));
+        index.build();
+
+        assertThat(ids("новое")).containsExactly(1L);
+        assertThat(ids("старое")).containsExactly(3L);  // У задачи 1 не осталось терминов снимка
+        assertThat(ids("удаленная")).isEmpty();
+        assertThat(index.stats()).containsEntry("building", false).containsEntry("tasks", 2);
+
+        index.onTaskChanged(TaskChangedEvent.deleted(1L, OWNER, TaskStatus.RESEARCHING));
+        assertThat(ids("новое")).isEmpty();
+        assertThat(ids("название")).isEmpty();
+    }
+
+    private List<Long> ids(String query) {
+        return index.search(OWNER, query, 0, 100).stream().map(Task::getId).toList();
+    }
+
+    private void created(long id, long ownerId, String title, String description, long version) {
+        index.onTaskChanged(TaskChangedEvent.created(dto(id, title, description, version), ownerId));
+    }
+
+    private void updated(long id, long ownerId, String title, String description, long version) {
+        index.onTaskChanged(TaskChangedEvent.updated(dto(id, title, description, version), ownerId, TaskStatus.RESEARCHING));
+    }
+
+    private TaskDto dto(long id, String title, String description, long version) {
+        return TaskDto.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .status(TaskStatus.RESEARCHING)
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package oleborn.todospringtest.services;
+
+import jakarta.annotation.Resource;
+import oleborn.todospringtest.AbstractPostgresTest;
+import oleborn.todospringtest.config.TaskCacheConfig;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import oleborn.todospringtest.model.jwt_authentication.Role;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сохранение задачи через TaskService: события изменения несут версию, записанную в БД,
+ * и по ним индекс поиска в памяти видит правки из формы и PUT.
+ */
+@Import({TaskService.class, TaskCacheConfig.class})
+@RecordApplicationEvents
+class TaskServiceTest extends AbstractPostgresTest {
+
+    @Resource
+    private TaskService taskService;
+
+    @Resource
+    private TestEntityManager entityManager;
+
+    @Resource
+    private ApplicationEvents applicationEvents;
+
+    @MockBean
+    private TaskSearchIndex taskSearchIndex;
+
+    @MockBean
+    private TaskWriteBehindBuffer taskWriteBehindBuffer;
+
+    @Test
+    void updateEventCarriesIncrementedVersion() {
+        AppUser owner = entityManager.persist(AppUser.builder()
+                .username("owner")
+                .password("{noop}password")
+                .roles(List.of(Role.USER))
+                .build());
+        Task created = taskService.save(task(null, "Квартальный отчет", null), owner.getId());
+        long createdVersion = created.getVersion();
+
+        Task saved = taskService.save(task(created.getId(), "Бюджет отдела", createdVersion), owner.getId());
+
+        assertThat(saved.getVersion()).isEqualTo(createdVersion + 1);
+        List<TaskChangedEvent> events = applicationEvents.stream(TaskChangedEvent.class).toList();
+        assertThat(events).extracting(TaskChangedEvent::getType)
+                .containsExactly(TaskChangedEvent.Type.CREATED, TaskChangedEvent.Type.UPDATED);
+        assertThat(events).extracting(event -> event.getTask().getVersion())
+                .containsExactly(createdVersion, createdVersion + 1);
+
+        // Те же события в индексе поиска в памяти: правка не отброшена как устаревшая
+        TaskSearchIndex index = new TaskSearchIndex();
+        ReflectionTestUtils.setField(index, "engine", "memory");
+        events.forEach(index::onTaskChanged);
+        assertThat(index.search(owner.getId(), "бюджет", 0, 10)).extracting(Task::getId).containsExactly(saved.getId());
+        assertThat(index.search(owner.getId(), "отчет", 0, 10)).isEmpty();
+    }
+
+    private Task task(Long id, String title, Long version) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setStatus(TaskStatus.RESEARCHING);
+        task.setVersion(version);
+        return task;
+    }
+}
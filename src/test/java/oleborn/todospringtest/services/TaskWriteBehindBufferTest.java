@@ -0,0 +1,310 @@
+package oleborn.todospringtest.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import oleborn.todospringtest.events.TaskChangedEvent;
+import oleborn.todospringtest.exceptions.TaskNotFoundException;
+import oleborn.todospringtest.model.Task;
+import oleborn.todospringtest.model.TaskDto;
+import oleborn.todospringtest.model.TaskStatus;
+import oleborn.todospringtest.model.jwt_authentication.AppUser;
+import oleborn.todospringtest.repository.TaskRepository;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Буфер отложенной записи: объединение обновлений, ограничение размера (503), переход на построчную
+ * запись после ошибки пачки, завершение DURABLE-вызовов, конфликты с изменениями в обход буфера и остановка.
+ * БД заменена таблицей в памяти: изменения видны после commit и пропадают при rollback.
+ */
+class TaskWriteBehindBufferTest {
+
+    private static final long OWNER = 1L;
+
+    private TaskWriteBehindBuffer buffer;
+    private TaskRepository taskRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Task> rows = new HashMap<>();  // Закоммиченные строки
+    private final List<Task> loaded = new ArrayList<>();  // Загруженные в текущей транзакции
+    private final Map<Long, Task> staged = new HashMap<>();  // Записанные, но не закоммиченные
+    private final Set<Long> failingIds = new HashSet<>();  // Запись этих задач падает
+    private int batchFailures;  // Сколько ближайших записей упадет целиком
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        meterRegistry = new SimpleMeterRegistry();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        EntityManager entityManager = mock(EntityManager.class);
+
+        when(entityManager.unwrap(Session.class)).thenReturn(mock(Session.class));
+        when(taskRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            List<Task> result = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                Task row = rows.get(id);
+                if (row != null) {
+                    Task copy = copy(row);
+                    loaded.add(copy);
+                    result.add(copy);
+                }
+            }
+            return result;
+        });
+        doAnswer(invocation -> {
+            if (batchFailures > 0 || loaded.stream().anyMatch(task -> failingIds.contains(task.getId()))) {
+                batchFailures = Math.max(0, batchFailures - 1);
+                throw new IllegalStateException("Batch update failed");
+            }
+            for (Task task : loaded) {
+                Task row = rows.get(task.getId());
+                if (!Objects.equals(row.getTitle(), task.getTitle()) || row.getStatus() != task.getStatus()
+                        || !Objects.equals(row.getDescription(), task.getDescription())) {
+                    task.setVersion(row.getVersion() + 1);  // Как @Version при UPDATE
+                    staged.put(task.getId(), copy(task));
+                }
+            }
+            loaded.clear();
+            return null;
+        }).when(entityManager).flush();
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        doAnswer(invocation -> {
+            rows.putAll(staged);
+            staged.clear();
+            loaded.clear();
+            return null;
+        }).when(transactionManager).commit(any());
+        doAnswer(invocation -> {
+            staged.clear();
+            loaded.clear();
+            return null;
+        }).when(transactionManager).rollback(any());
+
+        buffer = new TaskWriteBehindBuffer();
+        ReflectionTestUtils.setField(buffer, "taskRepository", taskRepository);
+        ReflectionTestUtils.setField(buffer, "eventPublisher", eventPublisher);
+        ReflectionTestUtils.setField(buffer, "transactionManager", transactionManager);
+        ReflectionTestUtils.setField(buffer, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(buffer, "entityManager", entityManager);
+        ReflectionTestUtils.setField(buffer, "enabled", true);
+        ReflectionTestUtils.setField(buffer, "maxPending", 2);
+        ReflectionTestUtils.setField(buffer, "batchSize", 100);  // Сброс только по вызову flushScheduled
+        ReflectionTestUtils.setField(buffer, "offerTimeoutMillis", 10L);
+        buffer.init();
+
+        for (long id = 1; id <= 3; id++) {
+            rows.put(id, row(id, "Задача " + id));
+        }
+    }
+
+    @Test
+    void coalescesUpdatesOfOneTask() {
+        submit(1, "Первая правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+        submit(1, "Вторая правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+        submit(1, "Третья правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+        submit(2, "Правка второй задачи", TaskWriteBehindBuffer.Durability.BUFFERED);
+
+        buffer.flushScheduled();
+
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Третья правка");
+        assertThat(rows.get(1L).getVersion()).isEqualTo(1L);  // Одно UPDATE на три обновления
+        assertThat(rows.get(2L).getTitle()).isEqualTo("Правка второй задачи");
+        verify(taskRepository, times(1)).findAllById(anyIterable());
+        verify(eventPublisher, times(2)).publishEvent(any(TaskChangedEvent.class));
+        assertThat(meterRegistry.get("tasks.write-behind.coalesced").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("tasks.write-behind.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void durableCompletesAfterCommitAndBufferedImmediately() throws Exception {
+        CompletableFuture<TaskDto> buffered = submit(1, "Быстрая правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+        CompletableFuture<TaskDto> durable = submit(2, "Надежная правка", TaskWriteBehindBuffer.Durability.DURABLE);
+
+        assertThat(buffered).isCompletedWithValue(null);
+        assertThat(durable).isNotDone();
+
+        buffer.flushScheduled();
+
+        TaskDto saved = durable.get(1, TimeUnit.SECONDS);
+        assertThat(saved.getTitle()).isEqualTo("Надежная правка");
+        assertThat(saved.getVersion()).isEqualTo(1L);
+        assertThat(rows.get(2L).getTitle()).isEqualTo("Надежная правка");
+    }
+
+    @Test
+    void rejectsWhenBufferIsFullButStillCoalesces() {
+        submit(1, "Правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+        submit(2, "Правка", TaskWriteBehindBuffer.Durability.BUFFERED);
+
+        assertThatThrownBy(() -> submit(3, "Лишняя правка", TaskWriteBehindBuffer.Durability.BUFFERED))
+                .isInstanceOf(RejectedExecutionException.class);
+        submit(1, "Правка без нового места", TaskWriteBehindBuffer.Durability.BUFFERED);
+        assertThat(meterRegistry.get("tasks.write-behind.rejected").counter().count()).isEqualTo(1.0);
+
+        buffer.flushScheduled();  // Сброс освобождает место
+
+        submit(3, "Правка после сброса", TaskWriteBehindBuffer.Durability.BUFFERED);
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Правка без нового места");
+    }
+
+    @Test
+    void fallsBackToRowByRowWhenBatchFails() {
+        failingIds.add(2L);  // Задача 2 не сохраняется ни в пачке, ни отдельно
+        CompletableFuture<TaskDto> first = submit(1, "Сохранится", TaskWriteBehindBuffer.Durability.DURABLE);
+        CompletableFuture<TaskDto> second = submit(2, "Не сохранится", TaskWriteBehindBuffer.Durability.DURABLE);
+
+        buffer.flushScheduled();
+
+        assertThat(first).isCompleted();
+        assertThat(first.join().getTitle()).isEqualTo("Сохранится");
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Сохранится");
+        assertThat(second).isCompletedExceptionally();
+        assertThat(rows.get(2L).getTitle()).isEqualTo("Задача 2");
+        verify(taskRepository, times(3)).findAllById(anyIterable());  // Пачка и две отдельные записи
+        assertThat(meterRegistry.get("tasks.write-behind.failed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void retriesWholeBatchRowByRowAfterTransientFailure() {
+        batchFailures = 1;
+        CompletableFuture<TaskDto> first = submit(1, "Первая", TaskWriteBehindBuffer.Durability.DURABLE);
+        CompletableFuture<TaskDto> second = submit(2, "Вторая", TaskWriteBehindBuffer.Durability.DURABLE);
+
+        buffer.flushScheduled();
+
+        assertThat(first.join().getVersion()).isEqualTo(1L);
+        assertThat(second.join().getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void dropsUpdateWhenTaskChangedOutsideBuffer() {
+        CompletableFuture<TaskDto> durable = submit(1, "Отложенная правка", TaskWriteBehindBuffer.Durability.DURABLE);
+        Task newer = row(1, "Правка через форму");
+        newer.setVersion(1L);
+        rows.put(1L, newer);  // Синхронное сохранение закоммичено до сброса
+
+        buffer.flushScheduled();
+
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Правка через форму");
+        assertThatThrownBy(durable::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(meterRegistry.get("tasks.write-behind.conflicts").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void ownFlushIsNotAConflict() {
+        submit(1, "Первая", TaskWriteBehindBuffer.Durability.BUFFERED);
+        buffer.flushScheduled();
+        // Вызывающий прочитал версию 0 до коммита предыдущего сброса
+        CompletableFuture<TaskDto> durable = buffer.submit(task(1, "Вторая"), OWNER, 0L, TaskWriteBehindBuffer.Durability.DURABLE);
+
+        buffer.flushScheduled();
+
+        assertThat(durable.join().getVersion()).isEqualTo(2L);
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Вторая");
+    }
+
+    @Test
+    void failsWithNotFoundWhenTaskDeletedBeforeFlush() {
+        CompletableFuture<TaskDto> durable = submit(1, "Правка", TaskWriteBehindBuffer.Durability.DURABLE);
+        rows.remove(1L);
+
+        buffer.flushScheduled();
+
+        assertThatThrownBy(durable::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TaskNotFoundException.class);
+    }
+
+    @Test
+    void shutdownFlushesPendingAndNeverLeavesWaitersHanging() throws Exception {
+        ReflectionTestUtils.setField(buffer, "offerTimeoutMillis", 5000L);
+        submit(1, "Перед остановкой", TaskWriteBehindBuffer.Durability.BUFFERED);
+        submit(2, "Перед остановкой", TaskWriteBehindBuffer.Durability.BUFFERED);
+
+        // Вызов прошел проверку остановки и ждет места в заполненном буфере
+        CompletableFuture<CompletableFuture<TaskDto>> racing = CompletableFuture.supplyAsync(
+                () -> submit(3, "Во время остановки", TaskWriteBehindBuffer.Durability.DURABLE));
+        Thread.sleep(100);
+
+        buffer.shutdown();
+
+        assertThat(rows.get(1L).getTitle()).isEqualTo("Перед остановкой");
+        assertThat(rows.get(2L).getTitle()).isEqualTo("Перед остановкой");
+        // Обновление либо сохранено последним сбросом, либо отклонено - но ожидающий не зависает
+        try {
+            CompletableFuture<TaskDto> written = racing.get(5, TimeUnit.SECONDS);
+            assertThat(written).isDone();
+            if (written.isCompletedExceptionally()) {
+                assertThatThrownBy(written::get).hasCauseInstanceOf(RejectedExecutionException.class);
+            }
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+        }
+        assertThat(meterRegistry.get("tasks.write-behind.pending").gauge().value()).isZero();
+        assertThatThrownBy(() -> submit(1, "После остановки", TaskWriteBehindBuffer.Durability.BUFFERED))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    private CompletableFuture<TaskDto> submit(long id, String title, TaskWriteBehindBuffer.Durability durability) {
+        Task current = rows.get(id);
+        return buffer.submit(task(id, title), OWNER, current.getVersion(), durability);
+    }
+
+    private Task task(long id, String title) {
+        Task task = new Task();
+        task.setId(id);
+        task.setTitle(title);
+        task.setStatus(TaskStatus.TO_PROCESSING);
+        return task;
+    }
+
+    private Task row(long id, String title) {
+        Task task = task(id, title);
+        task.setStatus(TaskStatus.RESEARCHING);
+        task.setVersion(0L);
+        task.setOwner(AppUser.builder().id(OWNER).build());
+        return task;
+    }
+
+    private Task copy(Task source) {
+        Task task = new Task();
+        task.setId(source.getId());
+        task.setTitle(source.getTitle());
+        task.setDescription(source.getDescription());
+        task.setStatus(source.getStatus());
+        task.setVersion(source.getVersion());
+        task.setOwner(source.getOwner());
+        return task;
+    }
+}
@@ -0,0 +1,75 @@
+package oleborn.todospringtest.services;
+
+import oleborn.todospringtest.model.jwt_authentication.Role;
+import oleborn.todospringtest.security.jwt_authentication.UserPrincipal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш пользователей: повторные запросы не ходят в БД, а загрузка, во время которой пользователя
+ * изменили (например, отозвали токены), не оставляет в кэше устаревшую запись.
+ */
+class UserPrincipalCacheTest {
+
+    private static final String USERNAME = "owner";
+
+    private UserPrincipalCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserPrincipalCache();
+        ReflectionTestUtils.setField(cache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 300L);
+        cache.init();
+    }
+
+    @Test
+    void loadsOnceAndServesFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(USERNAME, username -> principal(loads.incrementAndGet()));
+        UserPrincipal cached = cache.get(USERNAME, username -> principal(loads.incrementAndGet()));
+
+        assertThat(loads).hasValue(1);
+        assertThat(cached.getTokenVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void loadOverlappingInvalidationIsNotCached() {
+        // Загрузка прочитала версию 0, а отзыв закоммитился и сбросил кэш до того, как она положила результат
+        UserPrincipal stale = cache.get(USERNAME, username -> {
+            cache.invalidate(username);
+            return principal(0);
+        });
+        UserPrincipal reloaded = cache.get(USERNAME, username -> principal(1));
+
+        assertThat(stale.getTokenVersion()).isZero();  // Текущий запрос получает то, что загрузил
+        assertThat(reloaded.getTokenVersion()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidateAllAlsoDropsOverlappingLoad() {
+        cache.get(USERNAME, username -> {
+            cache.invalidateAll();
+            return principal(0);
+        });
+
+        assertThat(cache.get(USERNAME, username -> principal(1)).getTokenVersion()).isEqualTo(1);
+    }
+
+    private UserPrincipal principal(int tokenVersion) {
+        return UserPrincipal.builder()
+                .id(1L)
+                .username(USERNAME)
+                .password("{noop}password")
+                .roles(List.of(Role.USER))
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}